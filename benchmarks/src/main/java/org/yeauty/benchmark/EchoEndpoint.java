@@ -0,0 +1,31 @@
+package org.yeauty.benchmark;
+
+import io.netty.handler.codec.http.HttpHeaders;
+import org.yeauty.annotation.*;
+import org.yeauty.pojo.Session;
+
+/**
+ * 带有会话级参数(Session、@RequestParam、@PathVariable)和消息参数的端点
+ */
+public class EchoEndpoint {
+
+    private int received;
+
+    @OnOpen
+    public void onOpen(Session session, HttpHeaders headers, @RequestParam("token") String token, @PathVariable("room") String room) {
+    }
+
+    @OnMessage
+    public void onMessage(Session session, String message, @RequestParam("token") String token, @PathVariable("room") String room) {
+        received += message.length();
+    }
+
+    @OnBinary
+    public void onBinary(Session session, byte[] bytes) {
+        received += bytes.length;
+    }
+
+    @OnClose
+    public void onClose(Session session) {
+    }
+}
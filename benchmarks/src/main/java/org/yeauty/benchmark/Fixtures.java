@@ -0,0 +1,97 @@
+package org.yeauty.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.*;
+import io.netty.util.CharsetUtil;
+import io.netty.util.ReferenceCountUtil;
+import org.springframework.context.support.GenericApplicationContext;
+import org.yeauty.exception.DeploymentException;
+import org.yeauty.metrics.MicrometerWebSocketMetrics;
+import org.yeauty.metrics.WebSocketMetrics;
+import org.yeauty.pojo.PojoEndpointServer;
+import org.yeauty.pojo.PojoMethodMapping;
+import org.yeauty.standard.ServerEndpointConfig;
+
+/**
+ * 各个benchmark共用的端点、配置和请求
+ */
+public final class Fixtures {
+
+    public static final String PATH = "/ws/{room}";
+
+    public static final String URI = "/ws/lobby?token=abc";
+
+    public static final String MESSAGE = "{\"type\":\"chat\",\"room\":\"lobby\",\"text\":\"hello, world\"}";
+
+    private Fixtures() {
+    }
+
+    /**
+     * 与{@link org.yeauty.annotation.ServerEndpoint}的默认值一致，只是不使用eventExecutorGroup，回调直接在调用线程上执行
+     */
+    public static ServerEndpointConfig config() {
+        return new ServerEndpointConfig("0.0.0.0", 8080, 1, 0, false, false, 256, false, false, "nio",
+                30000, 128, false, 16, 65536, 32768, -1, -1, true, false, -1, false, false, false, true,
+                0, 0, 0, 65536, "none", 1024, false, 16, "default",
+                "", "", "", "", "", "", "", new String[0], null);
+    }
+
+    /**
+     * @param metrics "none"或"micrometer"
+     */
+    public static WebSocketMetrics metrics(String metrics) {
+        if ("micrometer".equals(metrics)) {
+            return new MicrometerWebSocketMetrics(new SimpleMeterRegistry());
+        }
+        return WebSocketMetrics.NOOP;
+    }
+
+    public static PojoEndpointServer endpointServer(Class<?> endpointClass, WebSocketMetrics metrics) throws DeploymentException {
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.refresh();
+        PojoMethodMapping methodMapping = new PojoMethodMapping(endpointClass, context, context.getDefaultListableBeanFactory());
+        return new PojoEndpointServer(methodMapping, config(), PATH, null, null, metrics);
+    }
+
+    public static FullHttpRequest upgradeRequest() {
+        FullHttpRequest req = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, URI);
+        HttpHeaders headers = req.headers();
+        headers.set(HttpHeaderNames.HOST, "localhost:8080");
+        headers.set(HttpHeaderNames.UPGRADE, HttpHeaderValues.WEBSOCKET);
+        headers.set(HttpHeaderNames.CONNECTION, HttpHeaderValues.UPGRADE);
+        headers.set(HttpHeaderNames.SEC_WEBSOCKET_KEY, "dGhlIHNhbXBsZSBub25jZQ==");
+        headers.set(HttpHeaderNames.SEC_WEBSOCKET_VERSION, "13");
+        return req;
+    }
+
+    /**
+     * 编码后的握手请求，用于经过HttpServerCodec的benchmark
+     */
+    public static ByteBuf upgradeRequestBytes() {
+        String request = "GET " + URI + " HTTP/1.1\r\n" +
+                "Host: localhost:8080\r\n" +
+                "Upgrade: websocket\r\n" +
+                "Connection: Upgrade\r\n" +
+                "Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\n" +
+                "Sec-WebSocket-Version: 13\r\n" +
+                "\r\n";
+        return Unpooled.unreleasableBuffer(Unpooled.directBuffer().writeBytes(request.getBytes(CharsetUtil.US_ASCII)));
+    }
+
+    /**
+     * 放在EmbeddedChannel的pipeline头部，直接释放写出的消息，避免outbound队列无限增长
+     */
+    public static final class DiscardOutboundHandler extends ChannelOutboundHandlerAdapter {
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            ReferenceCountUtil.release(msg);
+            promise.trySuccess();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.yeauty.benchmark;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import org.openjdk.jmh.annotations.*;
+import org.yeauty.support.AntPathMatcherWrapper;
+import org.yeauty.support.DefaultPathMatcher;
+import org.yeauty.support.PathRouter;
+import org.yeauty.support.WsPathMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 握手时的path匹配：逐个尝试{@link WsPathMatcher}与{@link PathRouter}的对比
+ * <br>一个端口上部署了{@link #endpoints}个静态path和同样数量的模板path，请求的path分别命中静态path、模板path和不存在的path
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PathMatcherBenchmark {
+
+    @Param({"1", "16", "128"})
+    public int endpoints;
+
+    @Param({"static", "template", "miss"})
+    public String target;
+
+    private final List<WsPathMatcher> matchers = new ArrayList<>();
+    private final PathRouter router = new PathRouter();
+    private WsPathMatcher defaultMatcher;
+    private WsPathMatcher antMatcher;
+    private QueryStringDecoder decoder;
+    private EmbeddedChannel channel;
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < endpoints; i++) {
+            String staticPath = "/api/v1/resource" + i;
+            String templatePath = "/api/v1/room" + i + "/{roomId}/user/{userId}";
+            matchers.add(new DefaultPathMatcher(staticPath));
+            matchers.add(new AntPathMatcherWrapper(templatePath));
+            router.addPattern(staticPath, false);
+            router.addPattern(templatePath, true);
+        }
+        int last = endpoints - 1;
+        defaultMatcher = new DefaultPathMatcher("/api/v1/resource" + last);
+        antMatcher = new AntPathMatcherWrapper("/api/v1/room" + last + "/{roomId}/user/{userId}");
+        String path;
+        if ("static".equals(target)) {
+            path = "/api/v1/resource" + last;
+        } else if ("template".equals(target)) {
+            path = "/api/v1/room" + last + "/42/user/7";
+        } else {
+            path = "/api/v2/unknown";
+        }
+        decoder = new QueryStringDecoder(path + "?token=abc");
+        //path()在第一次调用时解析，提前解析避免计入第一次测量
+        decoder.path();
+        channel = new EmbeddedChannel();
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    /**
+     * 单个DefaultPathMatcher，path精确比较
+     */
+    @Benchmark
+    public boolean defaultPathMatcher() {
+        return defaultMatcher.matchAndExtract(decoder, channel);
+    }
+
+    /**
+     * 单个AntPathMatcherWrapper，匹配成功时提取path变量
+     */
+    @Benchmark
+    public boolean antPathMatcher() {
+        return antMatcher.matchAndExtract(decoder, channel);
+    }
+
+    /**
+     * 逐个尝试所有WsPathMatcher，与按pattern集合线性查找的握手一致
+     */
+    @Benchmark
+    public String linearScan() {
+        for (WsPathMatcher matcher : matchers) {
+            if (matcher.matchAndExtract(decoder, channel)) {
+                return matcher.getPattern();
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public String pathRouter() {
+        return router.matchAndExtract(decoder, channel);
+    }
+}
@@ -0,0 +1,35 @@
+package org.yeauty.benchmark;
+
+import org.yeauty.annotation.*;
+import org.yeauty.pojo.Session;
+
+/**
+ * 按消息的"type"字段分发的端点
+ */
+public class RoutedEndpoint {
+
+    private int received;
+
+    @OnOpen
+    public void onOpen(Session session, @PathVariable("room") String room) {
+    }
+
+    @OnMessage(type = "join")
+    public void onJoin(Session session, String message) {
+        received++;
+    }
+
+    @OnMessage(type = "leave")
+    public void onLeave(Session session, String message) {
+        received--;
+    }
+
+    @OnMessage(type = "chat")
+    public void onChat(Session session, String message, @PathVariable("room") String room) {
+        received += message.length();
+    }
+
+    @OnMessage
+    public void onMessage(Session session, String message) {
+    }
+}
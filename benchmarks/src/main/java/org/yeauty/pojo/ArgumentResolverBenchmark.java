@@ -0,0 +1,83 @@
+package org.yeauty.pojo;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.util.AttributeKey;
+import io.netty.util.CharsetUtil;
+import org.openjdk.jmh.annotations.*;
+import org.yeauty.benchmark.EchoEndpoint;
+import org.yeauty.benchmark.Fixtures;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OnMessage方法的参数解析：每帧解析全部参数与复用open时解析的会话级参数的对比
+ * <br>{@link EchoEndpoint#onMessage}有Session、String、@RequestParam和@PathVariable四个参数
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ArgumentResolverBenchmark {
+
+    /**
+     * 与PojoEndpointServer中的key同名，AttributeKey按名字返回同一个实例
+     */
+    private static final AttributeKey<EndpointContext> CONTEXT_KEY = AttributeKey.valueOf("WEBSOCKET_CONTEXT");
+
+    private MethodInvoker onMessage;
+    private EmbeddedChannel channel;
+    private Object[] sessionArgs;
+    private Object implement;
+    private TextWebSocketFrame frame;
+
+    @Setup
+    public void setup() throws Exception {
+        PojoEndpointServer server = Fixtures.endpointServer(EchoEndpoint.class, null);
+        channel = new EmbeddedChannel(new Fixtures.DiscardOutboundHandler());
+        String pattern = server.getPathRouter().matchAndExtract(new QueryStringDecoder(Fixtures.URI), channel);
+        FullHttpRequest req = Fixtures.upgradeRequest();
+        server.doOnOpen(channel, req, pattern);
+        req.release();
+        EndpointContext context = channel.attr(CONTEXT_KEY).get();
+        onMessage = context.methodMapping.getOnMessageInvoker();
+        sessionArgs = context.onMessageArgs;
+        implement = context.implement;
+        frame = new TextWebSocketFrame(Unpooled.unreleasableBuffer(
+                Unpooled.directBuffer().writeBytes(Fixtures.MESSAGE.getBytes(CharsetUtil.UTF_8))));
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    /**
+     * 每帧都解析全部参数，包括@RequestParam的类型转换
+     */
+    @Benchmark
+    public Object[] resolveAllArguments() throws Exception {
+        return onMessage.getMethodArgumentValues(channel, frame);
+    }
+
+    /**
+     * 只填充消息参数，其余参数来自open时的缓存，包含反射调用
+     */
+    @Benchmark
+    public Object invokeWithSessionArguments() throws Throwable {
+        return onMessage.invoke(implement, channel, frame, sessionArgs);
+    }
+
+    /**
+     * 每帧解析全部参数并反射调用
+     */
+    @Benchmark
+    public Object invokeResolvingAllArguments() throws Throwable {
+        return onMessage.invoke(implement, channel, frame);
+    }
+}
@@ -0,0 +1,71 @@
+package org.yeauty.pojo;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.util.CharsetUtil;
+import org.openjdk.jmh.annotations.*;
+import org.yeauty.benchmark.EchoEndpoint;
+import org.yeauty.benchmark.Fixtures;
+import org.yeauty.benchmark.RoutedEndpoint;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一帧从{@link PojoEndpointServer#doOnMessage}到端点方法返回的开销：读取端点上下文、填充消息参数、反射调用
+ * <br>plain为单个OnMessage方法(带有会话级参数)，routed为按"type"字段分发的OnMessage方法
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class DispatchBenchmark {
+
+    @Param({"plain", "routed"})
+    public String endpoint;
+
+    @Param({"none", "micrometer"})
+    public String metrics;
+
+    private PojoEndpointServer server;
+    private EmbeddedChannel channel;
+    private TextWebSocketFrame textFrame;
+    private BinaryWebSocketFrame binaryFrame;
+
+    @Setup
+    public void setup() throws Exception {
+        Class<?> endpointClass = "routed".equals(endpoint) ? RoutedEndpoint.class : EchoEndpoint.class;
+        server = Fixtures.endpointServer(endpointClass, Fixtures.metrics(metrics));
+        channel = new EmbeddedChannel(new Fixtures.DiscardOutboundHandler());
+        String pattern = server.getPathRouter().matchAndExtract(new QueryStringDecoder(Fixtures.URI), channel);
+        FullHttpRequest req = Fixtures.upgradeRequest();
+        server.doOnOpen(channel, req, pattern);
+        req.release();
+        //帧在整个benchmark中复用，参数解析只读不改变readerIndex
+        ByteBuf text = Unpooled.unreleasableBuffer(Unpooled.directBuffer().writeBytes(Fixtures.MESSAGE.getBytes(CharsetUtil.UTF_8)));
+        textFrame = new TextWebSocketFrame(text);
+        binaryFrame = new BinaryWebSocketFrame(Unpooled.unreleasableBuffer(Unpooled.directBuffer().writeBytes(new byte[256])));
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.doOnClose(channel);
+        channel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public void onMessage() {
+        server.doOnMessage(channel, textFrame);
+    }
+
+    @Benchmark
+    public void onBinary() {
+        server.doOnBinary(channel, binaryFrame);
+    }
+}
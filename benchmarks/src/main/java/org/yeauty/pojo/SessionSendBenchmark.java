@@ -0,0 +1,104 @@
+package org.yeauty.pojo;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.CharsetUtil;
+import org.openjdk.jmh.annotations.*;
+import org.yeauty.benchmark.Fixtures;
+import org.yeauty.codec.CodecRegistry;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Session}发送一条消息的开销，包括编码、创建帧和经过pipeline写出
+ * <br>写出的帧在pipeline头部直接释放，不包含WebSocket编码和socket写入
+ * <br>direct为没有发送队列的会话，queued为配置了outboundOverflowPolicy的会话
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SessionSendBenchmark {
+
+    @Param({"direct", "queued"})
+    public String outbound;
+
+    @Param({"32", "1024"})
+    public int size;
+
+    private EmbeddedChannel channel;
+    private Session session;
+    private String text;
+    private byte[] bytes;
+    private ByteBuf buffer;
+    private Message message;
+
+    @Setup
+    public void setup() {
+        channel = new EmbeddedChannel(new Fixtures.DiscardOutboundHandler());
+        OutboundQueue outboundQueue = null;
+        if ("queued".equals(outbound)) {
+            outboundQueue = OutboundQueue.create(channel, OutboundQueue.parsePolicy("drop-oldest", 1024), 1024);
+        }
+        session = new Session(channel, null, outboundQueue, new CodecRegistry(), null);
+        StringBuilder builder = new StringBuilder(size);
+        for (int i = 0; i < size; i++) {
+            builder.append((char) ('a' + i % 26));
+        }
+        text = builder.toString();
+        bytes = text.getBytes(CharsetUtil.UTF_8);
+        buffer = Unpooled.unreleasableBuffer(Unpooled.directBuffer(size).writeBytes(bytes));
+        message = new Message("chat", text);
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public ChannelFuture sendText() {
+        return session.sendText(text);
+    }
+
+    @Benchmark
+    public ChannelFuture sendTextByteBuf() {
+        return session.sendText(buffer.duplicate());
+    }
+
+    @Benchmark
+    public ChannelFuture sendBinary() {
+        return session.sendBinary(bytes);
+    }
+
+    /**
+     * 通过CodecRegistry找到Jackson编码器，编码为JSON文本帧
+     */
+    @Benchmark
+    public ChannelFuture sendObject() {
+        return session.send(message);
+    }
+
+    public static final class Message {
+
+        private final String type;
+        private final String text;
+
+        Message(String type, String text) {
+            this.type = type;
+            this.text = text;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getText() {
+            return text;
+        }
+    }
+}
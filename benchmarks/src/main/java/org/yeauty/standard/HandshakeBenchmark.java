@@ -0,0 +1,49 @@
+package org.yeauty.standard;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import org.openjdk.jmh.annotations.*;
+import org.yeauty.benchmark.EchoEndpoint;
+import org.yeauty.benchmark.Fixtures;
+import org.yeauty.pojo.PojoEndpointServer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一次握手的开销：解码HTTP请求、匹配path、创建端点实例和Session、写出101响应、调用OnOpen，最后关闭连接调用OnClose
+ * <br>pipeline与{@link WebsocketServer}中的一致，没有ssl和跨域
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class HandshakeBenchmark {
+
+    @Param({"none", "micrometer"})
+    public String metrics;
+
+    private PojoEndpointServer server;
+    private ServerEndpointConfig config;
+    private ByteBuf request;
+
+    @Setup
+    public void setup() throws Exception {
+        server = Fixtures.endpointServer(EchoEndpoint.class, Fixtures.metrics(metrics));
+        config = Fixtures.config();
+        request = Fixtures.upgradeRequestBytes();
+    }
+
+    @Benchmark
+    public boolean handshake() {
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new HttpServerCodec(),
+                new HttpObjectAggregator(65536),
+                new HttpServerHandler(server, config, null, false));
+        channel.writeInbound(request.duplicate());
+        return channel.finishAndReleaseAll();
+    }
+}
@@ -0,0 +1,4 @@
+package org.yeauty.benchmark.generated;
+public class PathMatcherBenchmark_jmhType extends PathMatcherBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.yeauty.pojo.generated;
+public class ArgumentResolverBenchmark_jmhType extends ArgumentResolverBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.yeauty.pojo.generated;
+public class DispatchBenchmark_jmhType extends DispatchBenchmark_jmhType_B3 {
+}
+
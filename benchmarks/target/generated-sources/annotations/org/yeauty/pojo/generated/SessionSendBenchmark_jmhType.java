@@ -0,0 +1,4 @@
+package org.yeauty.pojo.generated;
+public class SessionSendBenchmark_jmhType extends SessionSendBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.yeauty.standard.generated;
+public class HandshakeBenchmark_jmhType extends HandshakeBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,186 @@
+package org.yeauty.loadtest;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.websocketx.*;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一个客户端连接：握手完成后按固定速率发送消息，按收到回复的顺序计算延迟
+ * <br>服务端按发送顺序回复，所以只需要一个发送时间的队列，不需要在消息中携带时间戳；所有方法都在连接的EventLoop上执行
+ */
+final class Connection extends SimpleChannelInboundHandler<WebSocketFrame> {
+
+    /**
+     * 发送的最小间隔，速率更高时每次发送多条
+     */
+    private static final long MIN_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final LoadTestOptions options;
+    private final Stats stats;
+
+    /**
+     * 所有连接共享的payload，unreleasable，每次发送使用duplicate或slice
+     */
+    private final ByteBuf payload;
+
+    /**
+     * 两条消息之间的期望间隔，用于修正coordinated omission
+     */
+    private final long intervalNanos;
+    private final long tickNanos;
+    private final double messagesPerTick;
+
+    private long[] sendTimes = new long[16];
+    private int head;
+    private int size;
+    private double credit;
+    private Channel channel;
+    private ScheduledFuture<?> sendTask;
+
+    /**
+     * 握手没有完成时连接失败只计一次
+     */
+    private boolean failed;
+
+    Connection(LoadTestOptions options, Stats stats, ByteBuf payload) {
+        this.options = options;
+        this.stats = stats;
+        this.payload = payload;
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / options.rate);
+        this.tickNanos = Math.max(intervalNanos, MIN_TICK_NANOS);
+        this.messagesPerTick = (double) tickNanos / intervalNanos;
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt == WebSocketClientProtocolHandler.ClientHandshakeStateEvent.HANDSHAKE_COMPLETE) {
+            channel = ctx.channel();
+            stats.active.incrementAndGet();
+            //随机的初始延迟，避免所有连接同时发送
+            long delay = ThreadLocalRandom.current().nextLong(tickNanos);
+            sendTask = ctx.executor().scheduleAtFixedRate(this::tick, delay, tickNanos, TimeUnit.NANOSECONDS);
+        } else if (evt == WebSocketClientProtocolHandler.ClientHandshakeStateEvent.HANDSHAKE_TIMEOUT) {
+            markFailed();
+        }
+        super.userEventTriggered(ctx, evt);
+    }
+
+    private void tick() {
+        if (stats.stopping || !channel.isActive()) {
+            return;
+        }
+        credit += messagesPerTick;
+        boolean written = false;
+        while (credit >= 1) {
+            if (!channel.isWritable()) {
+                stats.skipped.add((long) credit);
+                credit -= (long) credit;
+                break;
+            }
+            send();
+            credit--;
+            written = true;
+        }
+        if (written) {
+            channel.flush();
+        }
+    }
+
+    private void send() {
+        addSendTime(System.nanoTime());
+        int length = payload.readableBytes();
+        if (LoadTestOptions.MODE_BINARY.equals(options.mode)) {
+            channel.write(new BinaryWebSocketFrame(payload.duplicate()), channel.voidPromise());
+        } else if (LoadTestOptions.MODE_FRAGMENTED.equals(options.mode)) {
+            int fragments = options.fragments;
+            int chunk = length / fragments;
+            for (int i = 0; i < fragments; i++) {
+                int index = i * chunk;
+                boolean last = i == fragments - 1;
+                ByteBuf slice = payload.slice(index, last ? length - index : chunk);
+                WebSocketFrame frame = i == 0 ? new TextWebSocketFrame(last, 0, slice) : new ContinuationWebSocketFrame(last, 0, slice);
+                channel.write(frame, channel.voidPromise());
+            }
+        } else {
+            channel.write(new TextWebSocketFrame(payload.duplicate()), channel.voidPromise());
+        }
+        stats.sent.increment();
+        stats.bytesSent.add(length);
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, WebSocketFrame frame) {
+        if (!(frame instanceof TextWebSocketFrame) && !(frame instanceof BinaryWebSocketFrame)) {
+            return;
+        }
+        long now = System.nanoTime();
+        stats.received.increment();
+        stats.bytesReceived.add(frame.content().readableBytes());
+        if (size == 0) {
+            return;
+        }
+        long latency = now - pollSendTime();
+        stats.latency.recordValueWithExpectedInterval(Math.min(latency, Stats.HIGHEST_LATENCY_NANOS), intervalNanos);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (sendTask != null) {
+            sendTask.cancel(false);
+            stats.active.decrementAndGet();
+            if (!stats.stopping) {
+                stats.unexpectedCloses.incrementAndGet();
+            }
+        } else {
+            markFailed();
+        }
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        if (sendTask == null) {
+            markFailed();
+        } else {
+            stats.errors.increment();
+        }
+        //只打印前几个异常，避免大量连接同时失败时刷屏
+        if (stats.errors.sum() + stats.failedConnects.get() <= 10) {
+            cause.printStackTrace();
+        }
+        ctx.close();
+    }
+
+    private void markFailed() {
+        if (!failed) {
+            failed = true;
+            stats.failedConnects.incrementAndGet();
+        }
+    }
+
+    private void addSendTime(long time) {
+        if (size == sendTimes.length) {
+            long[] grown = new long[size * 2];
+            for (int i = 0; i < size; i++) {
+                grown[i] = sendTimes[(head + i) % size];
+            }
+            sendTimes = grown;
+            head = 0;
+        }
+        sendTimes[(head + size) % sendTimes.length] = time;
+        size++;
+    }
+
+    private long pollSendTime() {
+        long time = sendTimes[head];
+        head = (head + 1) % sendTimes.length;
+        size--;
+        return time;
+    }
+}
@@ -0,0 +1,25 @@
+package org.yeauty.loadtest;
+
+import org.yeauty.annotation.OnBinary;
+import org.yeauty.annotation.OnMessage;
+import org.yeauty.annotation.ServerEndpoint;
+
+/**
+ * 把收到的消息原样返回，分片消息由服务端聚合后作为一条消息返回
+ * <br>maxContentLength保持默认，单帧大小受maxFramePayloadLength限制，更大的消息使用fragmented模式
+ */
+@ServerEndpoint(path = "/echo", port = "${loadtest.port:8090}",
+        maxFramePayloadLength = "${loadtest.max-frame-payload-length:65536}",
+        eventExecutorMode = "${loadtest.event-executor-mode:default}")
+public class EchoEndpoint {
+
+    @OnMessage
+    public String onMessage(String message) {
+        return message;
+    }
+
+    @OnBinary
+    public byte[] onBinary(byte[] bytes) {
+        return bytes;
+    }
+}
@@ -0,0 +1,10 @@
+package org.yeauty.loadtest;
+
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * 压测使用的内嵌应用，只包含{@link EchoEndpoint}
+ */
+@SpringBootApplication
+public class EchoServer {
+}
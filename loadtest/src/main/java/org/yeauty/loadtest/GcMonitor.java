@@ -0,0 +1,57 @@
+package org.yeauty.loadtest;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import org.HdrHistogram.Recorder;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 通过GC通知记录每次停顿的时长，单位微秒(通知的精度为毫秒)
+ * <br>并发收集器的周期(如G1 Concurrent GC、ZGC Cycles)不是停顿，不记录
+ */
+final class GcMonitor implements NotificationListener {
+
+    private static final long HIGHEST_PAUSE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    final Recorder pauses = new Recorder(HIGHEST_PAUSE_MICROS, 3);
+
+    void start() {
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (bean instanceof NotificationEmitter) {
+                ((NotificationEmitter) bean).addNotificationListener(this, null, null);
+            }
+        }
+    }
+
+    void stop() {
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (bean instanceof NotificationEmitter) {
+                try {
+                    ((NotificationEmitter) bean).removeNotificationListener(this);
+                } catch (Exception ignored) {
+                    //没有注册成功时忽略
+                }
+            }
+        }
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        String name = info.getGcName();
+        if (name.contains("Concurrent") || name.contains("Cycles")) {
+            return;
+        }
+        long micros = TimeUnit.MILLISECONDS.toMicros(info.getGcInfo().getDuration());
+        pauses.recordValue(Math.min(micros, HIGHEST_PAUSE_MICROS));
+    }
+}
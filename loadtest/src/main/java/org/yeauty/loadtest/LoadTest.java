@@ -0,0 +1,332 @@
+package org.yeauty.loadtest;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocatorMetric;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.*;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.websocketx.WebSocketClientHandshakerFactory;
+import io.netty.handler.codec.http.websocketx.WebSocketClientProtocolHandler;
+import io.netty.handler.codec.http.websocketx.WebSocketFrameAggregator;
+import io.netty.handler.codec.http.websocketx.WebSocketVersion;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.Banner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WebSocket压测与长时间稳定性测试
+ * <br>建立N个连接，每个连接按设定的速率和大小发送文本、二进制或分片消息，服务端原样返回，
+ * 定期输出吞吐量、延迟分位数和GC停顿，结束时输出汇总以及每个连接占用的内存
+ * <br>没有指定--url时在本进程中启动{@link EchoServer}，此时内存与GC包含服务端和客户端两部分
+ * <br>有连接失败、异常断开或异常时以1退出，可以直接用于CI中的长时间测试
+ */
+public class LoadTest {
+
+    private static final int MAX_FRAME_PAYLOAD_LENGTH = 64 * 1024 * 1024;
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        ConfigurableApplicationContext server = null;
+        if (options.isEmbedded()) {
+            SpringApplication application = new SpringApplication(EchoServer.class);
+            application.setBannerMode(Banner.Mode.OFF);
+            String[] serverArgs = Arrays.copyOf(args, args.length + 1);
+            serverArgs[args.length] = "--loadtest.port=" + options.port;
+            server = application.run(serverArgs);
+            //端口在exporter初始化时异步绑定
+            waitForPort(options.port);
+        }
+        int exitCode;
+        try {
+            exitCode = new LoadTest().run(options);
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+        System.exit(exitCode);
+    }
+
+    private int run(LoadTestOptions options) throws Exception {
+        System.out.println("options: " + options);
+        URI uri = new URI(options.targetUrl());
+        boolean ssl = "wss".equalsIgnoreCase(uri.getScheme());
+        String host = uri.getHost();
+        int port = uri.getPort() != -1 ? uri.getPort() : (ssl ? 443 : 80);
+        SslContext sslContext = ssl ? SslContextBuilder.forClient().trustManager(InsecureTrustManagerFactory.INSTANCE).build() : null;
+
+        Stats stats = new Stats();
+        ByteBuf payload = payload(options);
+        EventLoopGroup group = new NioEventLoopGroup(options.threads);
+        ChannelGroup channels = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+        GcMonitor gcMonitor = new GcMonitor();
+        try {
+            Bootstrap bootstrap = new Bootstrap()
+                    .group(group)
+                    .channel(NioSocketChannel.class)
+                    .option(ChannelOption.TCP_NODELAY, true)
+                    .handler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(SocketChannel ch) {
+                            ChannelPipeline pipeline = ch.pipeline();
+                            if (sslContext != null) {
+                                pipeline.addLast(sslContext.newHandler(ch.alloc(), host, port));
+                            }
+                            pipeline.addLast(new HttpClientCodec());
+                            pipeline.addLast(new HttpObjectAggregator(8192));
+                            pipeline.addLast(new WebSocketClientProtocolHandler(WebSocketClientHandshakerFactory.newHandshaker(
+                                    uri, WebSocketVersion.V13, null, false, new DefaultHttpHeaders(), MAX_FRAME_PAYLOAD_LENGTH)));
+                            pipeline.addLast(new WebSocketFrameAggregator(MAX_FRAME_PAYLOAD_LENGTH));
+                            pipeline.addLast(new Connection(options, stats, payload));
+                        }
+                    });
+
+            //建立连接并测量每个连接占用的内存
+            MemorySnapshot before = MemorySnapshot.take();
+            connect(bootstrap, host, port, options, stats, channels);
+            MemorySnapshot after = MemorySnapshot.take();
+            System.out.printf("connections: %d established, %d failed, %s%n",
+                    stats.active.get(), stats.failedConnects.get(), after.perConnection(before, stats.active.get()));
+
+            gcMonitor.start();
+            Histogram latency = new Histogram(Stats.HIGHEST_LATENCY_NANOS, 3);
+            Histogram gcPauses = new Histogram(3);
+            drive(options, stats, gcMonitor, latency, gcPauses);
+            return summary(options, stats, latency, gcPauses, before, after);
+        } finally {
+            stats.stopping = true;
+            gcMonitor.stop();
+            channels.close().awaitUninterruptibly(10, TimeUnit.SECONDS);
+            group.shutdownGracefully(0, 5, TimeUnit.SECONDS).syncUninterruptibly();
+        }
+    }
+
+    /**
+     * 按--connect-rate的速率建立连接，等待所有握手完成或失败
+     */
+    private static void connect(Bootstrap bootstrap, String host, int port, LoadTestOptions options, Stats stats, ChannelGroup channels) throws InterruptedException {
+        long start = System.nanoTime();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.connectRate;
+        for (int i = 0; i < options.connections; i++) {
+            long wait = start + i * intervalNanos - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            ChannelFuture future = bootstrap.connect(host, port);
+            channels.add(future.channel());
+            future.addListener(f -> {
+                if (!f.isSuccess()) {
+                    stats.failedConnects.incrementAndGet();
+                }
+            });
+        }
+        //握手超时为10秒
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(15);
+        while (stats.active.get() + stats.failedConnects.get() < options.connections && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+    }
+
+    /**
+     * 发送消息直到结束，定期输出区间统计
+     *
+     * @param latency  累计预热之后的延迟，单位纳秒
+     * @param gcPauses 累计预热之后的GC停顿，单位微秒
+     */
+    private static void drive(LoadTestOptions options, Stats stats, GcMonitor gcMonitor, Histogram latency, Histogram gcPauses) throws InterruptedException {
+        Histogram interval = null;
+        Histogram gcInterval = null;
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(options.warmupSeconds + options.durationSeconds);
+        long warmupEnd = start + TimeUnit.SECONDS.toNanos(options.warmupSeconds);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(options.reportIntervalSeconds);
+        long lastReport = start;
+        long lastSent = stats.sent.sum(), lastReceived = stats.received.sum();
+        long lastBytesSent = stats.bytesSent.sum(), lastBytesReceived = stats.bytesReceived.sum();
+        //丢弃建立连接期间的数据
+        stats.latency.reset();
+        gcMonitor.pauses.reset();
+        boolean warmedUp = options.warmupSeconds == 0;
+        while (true) {
+            long now = System.nanoTime();
+            long next = Math.min(lastReport + intervalNanos, end);
+            if (next > now) {
+                TimeUnit.NANOSECONDS.sleep(next - now);
+                now = System.nanoTime();
+            }
+            interval = stats.latency.getIntervalHistogram(interval);
+            gcInterval = gcMonitor.pauses.getIntervalHistogram(gcInterval);
+            long sent = stats.sent.sum(), received = stats.received.sum();
+            long bytesSent = stats.bytesSent.sum(), bytesReceived = stats.bytesReceived.sum();
+            double seconds = (now - lastReport) / 1e9;
+            String phase = warmedUp ? "" : " warmup";
+            if (warmedUp) {
+                latency.add(interval);
+                gcPauses.add(gcInterval);
+            } else if (now >= warmupEnd) {
+                //预热在这个区间内结束，从下一个区间开始累计
+                warmedUp = true;
+            }
+            System.out.printf("[%5ds]%s conn=%d sent=%.0f/s recv=%.0f/s out=%.2fMB/s in=%.2fMB/s " +
+                            "p50=%s p99=%s p99.9=%s max=%s gc=%d (max %s) skipped=%d errors=%d%n",
+                    TimeUnit.NANOSECONDS.toSeconds(now - start), phase,
+                    stats.active.get(),
+                    (sent - lastSent) / seconds, (received - lastReceived) / seconds,
+                    (bytesSent - lastBytesSent) / seconds / 1e6, (bytesReceived - lastBytesReceived) / seconds / 1e6,
+                    formatNanos(interval.getValueAtPercentile(50)), formatNanos(interval.getValueAtPercentile(99)),
+                    formatNanos(interval.getValueAtPercentile(99.9)), formatNanos(interval.getMaxValue()),
+                    gcInterval.getTotalCount(), formatNanos(TimeUnit.MICROSECONDS.toNanos(gcInterval.getMaxValue())),
+                    stats.skipped.sum(), stats.errors.sum());
+            lastReport = now;
+            lastSent = sent;
+            lastReceived = received;
+            lastBytesSent = bytesSent;
+            lastBytesReceived = bytesReceived;
+            if (now >= end) {
+                break;
+            }
+        }
+        //停止发送，等待已发送的消息返回
+        stats.stopping = true;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (stats.received.sum() < stats.sent.sum() && stats.active.get() > 0 && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+        latency.add(stats.latency.getIntervalHistogram(interval));
+    }
+
+    private static int summary(LoadTestOptions options, Stats stats, Histogram latency, Histogram gcPauses,
+                               MemorySnapshot before, MemorySnapshot after) throws Exception {
+        long sent = stats.sent.sum();
+        long received = stats.received.sum();
+        double seconds = options.warmupSeconds + options.durationSeconds;
+        System.out.println();
+        System.out.println("==== summary ====");
+        System.out.println("options: " + options);
+        System.out.printf("connections: failed=%d closed-unexpectedly=%d errors=%d%n",
+                stats.failedConnects.get(), stats.unexpectedCloses.get(), stats.errors.sum());
+        System.out.printf("messages: sent=%d received=%d missing=%d skipped=%d%n", sent, received, sent - received, stats.skipped.sum());
+        System.out.printf("throughput (whole run): %.0f msg/s out, %.0f msg/s in, %.2f MB/s out, %.2f MB/s in%n",
+                sent / seconds, received / seconds, stats.bytesSent.sum() / seconds / 1e6, stats.bytesReceived.sum() / seconds / 1e6);
+        System.out.println("memory: " + after.perConnection(before, options.connections - stats.failedConnects.get()));
+        System.out.printf("gc pauses after warmup: count=%d p99=%s max=%s%n", gcPauses.getTotalCount(),
+                formatNanos(TimeUnit.MICROSECONDS.toNanos(gcPauses.getValueAtPercentile(99))),
+                formatNanos(TimeUnit.MICROSECONDS.toNanos(gcPauses.getMaxValue())));
+        System.out.printf("gc (whole run): collections=%d time=%dms%n", gcCount(), gcTime());
+        System.out.printf("latency after warmup: count=%d mean=%s p50=%s p90=%s p99=%s p99.9=%s p99.99=%s max=%s%n",
+                latency.getTotalCount(), formatNanos((long) latency.getMean()),
+                formatNanos(latency.getValueAtPercentile(50)), formatNanos(latency.getValueAtPercentile(90)),
+                formatNanos(latency.getValueAtPercentile(99)), formatNanos(latency.getValueAtPercentile(99.9)),
+                formatNanos(latency.getValueAtPercentile(99.99)), formatNanos(latency.getMaxValue()));
+        if (!options.hgrm.isEmpty()) {
+            try (PrintStream out = new PrintStream(new FileOutputStream(options.hgrm))) {
+                //输出单位为微秒
+                latency.outputPercentileDistribution(out, 1000.0);
+            }
+            System.out.println("latency distribution (us) written to " + options.hgrm);
+        }
+        boolean failed = stats.failedConnects.get() > 0 || stats.unexpectedCloses.get() > 0 || stats.errors.sum() > 0;
+        return failed ? 1 : 0;
+    }
+
+    private static ByteBuf payload(LoadTestOptions options) {
+        byte[] bytes = new byte[options.size];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (LoadTestOptions.MODE_BINARY.equals(options.mode)) {
+            random.nextBytes(bytes);
+        } else {
+            //文本消息只使用ASCII字母，分片时每一片也是合法的UTF-8
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = (byte) ('a' + random.nextInt(26));
+            }
+        }
+        return Unpooled.unreleasableBuffer(Unpooled.directBuffer(bytes.length).writeBytes(bytes));
+    }
+
+    private static void waitForPort(int port) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (System.nanoTime() < deadline) {
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress("127.0.0.1", port), 1000);
+                return;
+            } catch (Exception e) {
+                TimeUnit.MILLISECONDS.sleep(100);
+            }
+        }
+        throw new IllegalStateException("embedded server did not start on port " + port);
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(bean -> Math.max(0, bean.getCollectionCount())).sum();
+    }
+
+    private static long gcTime() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(bean -> Math.max(0, bean.getCollectionTime())).sum();
+    }
+
+    static String formatNanos(long nanos) {
+        if (nanos < 1_000_000) {
+            return String.format("%.0fus", nanos / 1e3);
+        }
+        if (nanos < 1_000_000_000) {
+            return String.format("%.2fms", nanos / 1e6);
+        }
+        return String.format("%.2fs", nanos / 1e9);
+    }
+
+    /**
+     * 堆内存(full GC之后)与池化分配器的direct内存
+     */
+    private static final class MemorySnapshot {
+
+        private final long heap;
+        private final long direct;
+
+        private MemorySnapshot(long heap, long direct) {
+            this.heap = heap;
+            this.direct = direct;
+        }
+
+        static MemorySnapshot take() throws InterruptedException {
+            for (int i = 0; i < 3; i++) {
+                System.gc();
+                TimeUnit.MILLISECONDS.sleep(100);
+            }
+            long heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+            PooledByteBufAllocatorMetric metric = PooledByteBufAllocator.DEFAULT.metric();
+            return new MemorySnapshot(heap, metric.usedDirectMemory() + metric.usedHeapMemory());
+        }
+
+        String perConnection(MemorySnapshot before, int connections) {
+            if (connections <= 0) {
+                return "no connection established";
+            }
+            return String.format("%.1fKB heap and %.1fKB pooled buffers per connection",
+                    (heap - before.heap) / 1024.0 / connections, (direct - before.direct) / 1024.0 / connections);
+        }
+    }
+}
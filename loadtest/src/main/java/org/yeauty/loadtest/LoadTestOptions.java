@@ -0,0 +1,107 @@
+package org.yeauty.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 命令行参数，格式为--name=value
+ */
+final class LoadTestOptions {
+
+    static final String MODE_TEXT = "text";
+    static final String MODE_BINARY = "binary";
+    static final String MODE_FRAGMENTED = "fragmented";
+
+    /**
+     * 压测的地址，为空时在本进程中启动{@link EchoServer}并连接ws://127.0.0.1:port/echo
+     */
+    final String url;
+    final int port;
+    final int connections;
+    /**
+     * 每秒建立的连接数
+     */
+    final int connectRate;
+    /**
+     * 每个连接每秒发送的消息数
+     */
+    final double rate;
+    final int size;
+    final String mode;
+    /**
+     * fragmented模式下每条消息拆分的帧数
+     */
+    final int fragments;
+    final int durationSeconds;
+    /**
+     * 预热时间内的延迟不计入最终结果
+     */
+    final int warmupSeconds;
+    final int reportIntervalSeconds;
+    /**
+     * 客户端EventLoop的线程数，0为netty的默认值
+     */
+    final int threads;
+    /**
+     * 把最终的延迟分布写到该文件(HdrHistogram的.hgrm格式)
+     */
+    final String hgrm;
+
+    private LoadTestOptions(Map<String, String> args) {
+        this.url = args.getOrDefault("url", "");
+        this.port = Integer.parseInt(args.getOrDefault("port", "8090"));
+        this.connections = Integer.parseInt(args.getOrDefault("connections", "100"));
+        this.connectRate = Integer.parseInt(args.getOrDefault("connect-rate", "500"));
+        this.rate = Double.parseDouble(args.getOrDefault("rate", "10"));
+        this.size = Integer.parseInt(args.getOrDefault("size", "128"));
+        this.mode = args.getOrDefault("mode", MODE_TEXT);
+        this.fragments = Integer.parseInt(args.getOrDefault("fragments", "4"));
+        this.durationSeconds = Integer.parseInt(args.getOrDefault("duration", "60"));
+        this.warmupSeconds = Integer.parseInt(args.getOrDefault("warmup", "10"));
+        this.reportIntervalSeconds = Integer.parseInt(args.getOrDefault("report-interval", "5"));
+        this.threads = Integer.parseInt(args.getOrDefault("threads", "0"));
+        this.hgrm = args.getOrDefault("hgrm", "");
+        if (!MODE_TEXT.equals(mode) && !MODE_BINARY.equals(mode) && !MODE_FRAGMENTED.equals(mode)) {
+            throw new IllegalArgumentException("mode must be text, binary or fragmented: " + mode);
+        }
+        if (connections <= 0 || connectRate <= 0 || rate <= 0 || size <= 0 || fragments <= 0 || reportIntervalSeconds <= 0) {
+            throw new IllegalArgumentException("connections, connect-rate, rate, size, fragments and report-interval must be positive");
+        }
+        if (MODE_FRAGMENTED.equals(mode) && size < fragments) {
+            throw new IllegalArgumentException("size must not be less than fragments");
+        }
+    }
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("unknown argument " + arg);
+            }
+            int eq = arg.indexOf('=');
+            if (eq == -1) {
+                values.put(arg.substring(2), "true");
+            } else {
+                values.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return new LoadTestOptions(values);
+    }
+
+    boolean isEmbedded() {
+        return url.isEmpty();
+    }
+
+    String targetUrl() {
+        return isEmbedded() ? "ws://127.0.0.1:" + port + "/echo" : url;
+    }
+
+    @Override
+    public String toString() {
+        return "url=" + targetUrl() + (isEmbedded() ? " (embedded)" : "") +
+                " connections=" + connections + " connect-rate=" + connectRate + "/s" +
+                " rate=" + rate + "/s per connection" + " size=" + size + "B" +
+                " mode=" + mode + (MODE_FRAGMENTED.equals(mode) ? " fragments=" + fragments : "") +
+                " duration=" + durationSeconds + "s" + " warmup=" + warmupSeconds + "s";
+    }
+}
@@ -0,0 +1,43 @@
+package org.yeauty.loadtest;
+
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 所有连接共享的计数，可以在任意线程上累加
+ */
+final class Stats {
+
+    /**
+     * 延迟超过该值时按该值记录
+     */
+    static final long HIGHEST_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    /**
+     * 延迟的区间直方图，单位纳秒，由报告线程定期取出
+     */
+    final Recorder latency = new Recorder(HIGHEST_LATENCY_NANOS, 3);
+
+    final LongAdder sent = new LongAdder();
+    final LongAdder received = new LongAdder();
+    final LongAdder bytesSent = new LongAdder();
+    final LongAdder bytesReceived = new LongAdder();
+
+    /**
+     * channel不可写时没有发送的消息数，不为0说明服务端或网络跟不上设定的速率
+     */
+    final LongAdder skipped = new LongAdder();
+    final LongAdder errors = new LongAdder();
+
+    final AtomicInteger active = new AtomicInteger();
+    final AtomicInteger failedConnects = new AtomicInteger();
+    final AtomicInteger unexpectedCloses = new AtomicInteger();
+
+    /**
+     * 为true时停止发送，之后的连接关闭不算异常
+     */
+    volatile boolean stopping;
+}
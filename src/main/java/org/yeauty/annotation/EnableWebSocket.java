@@ -9,6 +9,6 @@ import java.lang.annotation.Target;
 
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.TYPE)
-@Import(NettyWebSocketSelector.class)
+@Import({NettyWebSocketSelector.class, NettyWebSocketSupportConfiguration.class})
 public @interface EnableWebSocket {
 }
@@ -0,0 +1,41 @@
+package org.yeauty.annotation;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.yeauty.codec.CodecRegistry;
+import org.yeauty.pojo.SessionRegistry;
+import org.yeauty.pojo.TopicBroker;
+import org.yeauty.standard.EventLoopGroupRegistry;
+
+/**
+ * 端点依赖的组件，不受{@link NettyWebSocketSelector}的条件限制，手动声明ServerEndpointExporter时也可以注入
+ * <br>每个bean只在容器中没有同类型的bean时创建，可以声明自己的实现替换
+ */
+@Configuration
+public class NettyWebSocketSupportConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean(EventLoopGroupRegistry.class)
+    public EventLoopGroupRegistry eventLoopGroupRegistry() {
+        return new EventLoopGroupRegistry();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(SessionRegistry.class)
+    public SessionRegistry sessionRegistry() {
+        return new SessionRegistry();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(TopicBroker.class)
+    public TopicBroker topicBroker() {
+        return new TopicBroker();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(CodecRegistry.class)
+    public CodecRegistry codecRegistry() {
+        return new CodecRegistry();
+    }
+}
@@ -8,4 +8,13 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.METHOD)
 public @interface OnMessage {
+
+    /**
+     * The message type handled by this method, matched against the type field
+     * of the message (see {@link ServerEndpoint#messageTypeField()}).
+     * <p>An endpoint may declare one method per type plus one method without a
+     * type, which receives the messages of all other types. Messages of a type
+     * without a method are dropped before their arguments are resolved.
+     */
+    String type() default "";
 }
\ No newline at end of file
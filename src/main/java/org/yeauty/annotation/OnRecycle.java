@@ -0,0 +1,17 @@
+package org.yeauty.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Resets a pooled endpoint instance before it is reused by another connection.
+ * <p>Required when {@link ServerEndpoint#instanceMode()} is {@code pooled}. The method
+ * must be public and take no parameters; it is called after {@code @OnClose}, and an
+ * instance whose reset throws is discarded instead of being returned to the pool.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface OnRecycle {
+}
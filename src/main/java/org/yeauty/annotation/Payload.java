@@ -0,0 +1,19 @@
+package org.yeauty.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Opts a message into the built-in codecs ({@code JacksonCodec}, {@code ProtobufCodec}).
+ * <p>On a parameter of an {@link OnMessage} or {@link OnBinary} method, the message is decoded
+ * into the parameter type. On the method itself, the return value is encoded and sent.
+ * <p>Codecs declared as {@code Decoder}/{@code Encoder} beans are used without this annotation.
+ * The built-in ones accept almost any type, so without it an unsupported parameter type fails
+ * the deployment and an unsupported return value is ignored, as before codecs were added.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.PARAMETER, ElementType.METHOD})
+public @interface Payload {
+}
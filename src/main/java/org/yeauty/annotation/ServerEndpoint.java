@@ -32,6 +32,21 @@ public @interface ServerEndpoint {
     String workerLoopGroupThreads() default "0";
 
     String useCompressionHandler() default "false";
+    String useFlushConsolidationHandler() default "false";  //coalesce flushes of a session, see FlushConsolidationHandler
+    String flushConsolidationExplicitFlushAfterFlushes() default "256";  //flush after this many pending flushes even when a read is in progress
+    String flushConsolidationWhenNoReadInProgress() default "false";  //also coalesce flushes issued outside of a read, e.g. from eventExecutorGroup
+
+    String shareEventLoopGroup() default "true";  //share boss/worker/eventExecutor groups with other endpoints and ports
+
+    String transport() default "auto";          //auto, nio or epoll. auto means epoll when it is available, otherwise nio
+
+    String instanceMode() default "prototype";  //prototype, singleton or pooled. how endpoint instances are created for connections, pooled endpoints need an @OnRecycle method
+
+    String instancePoolSize() default "256";    //max idle instances kept when instanceMode is pooled
+
+    String messageTypeField() default "type";   //JSON field holding the message type for @OnMessage(type=...) routing
+
+    String requestIdField() default "correlationId";    //field of a JSON response carrying the correlation id of Session.request()
 
     //------------------------- option -------------------------
 
@@ -39,6 +54,8 @@ public @interface ServerEndpoint {
 
     String optionSoBacklog() default "128";
 
+    String optionSoReuseport() default "false";  //only effective with epoll transport, bind one listening socket per worker thread
+
     //------------------------- childOption -------------------------
 
     String childOptionWriteSpinCount() default "16";
@@ -59,6 +76,14 @@ public @interface ServerEndpoint {
 
     String childOptionAllowHalfClosure() default "false";
 
+    //------------------------- epoll childOption (only effective when epoll transport is used) -------------------------
+
+    String childOptionTcpQuickack() default "false";
+
+    String childOptionTcpCork() default "false";
+
+    String childOptionEpollEdgeTriggered() default "true";
+
     //------------------------- idleEvent -------------------------
 
     String readerIdleTimeSeconds() default "0";
@@ -70,12 +95,16 @@ public @interface ServerEndpoint {
     //------------------------- handshake -------------------------
 
     String maxFramePayloadLength() default "65536";
+    String maxContentLength() default "2147483647";  //max size of a reassembled fragmented message, oversized messages close the connection with 1009. per endpoint, not shared by the port
+    String outboundOverflowPolicy() default "none";  //none, drop-newest, drop-oldest or disconnect. what to do when the outbound queue of a non-writable session is full
+    String outboundQueueCapacity() default "1024";  //max messages queued per session while the channel is not writable
 
     //------------------------- eventExecutorGroup -------------------------
 
     String useEventExecutorGroup() default "true"; //use EventExecutorGroup(another thread pool) to perform time-consuming synchronous business logic
 
     String eventExecutorGroupThreads() default "16";
+    String eventExecutorMode() default "default";  //default, virtual or forkjoin. virtual/forkjoin give each session an ordered mailbox on virtual threads (JDK 21+, falls back to default on older JDKs) or on a work-stealing ForkJoinPool
 
     //------------------------- ssl (refer to spring Ssl) -------------------------
 
@@ -0,0 +1,29 @@
+package org.yeauty.autoconfigure;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.yeauty.metrics.MicrometerWebSocketMetrics;
+import org.yeauty.metrics.WebSocketMetrics;
+
+/**
+ * classpath中有Micrometer并且容器中有MeterRegistry时记录连接、帧、字节数和回调耗时等指标
+ */
+@Configuration
+@ConditionalOnClass(MeterRegistry.class)
+@ConditionalOnBean(MeterRegistry.class)
+@AutoConfigureAfter(name = {
+        "org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration",
+        "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration"})
+public class NettyWebSocketMetricsAutoConfigure {
+
+    @Bean
+    @ConditionalOnMissingBean(WebSocketMetrics.class)
+    public WebSocketMetrics webSocketMetrics(MeterRegistry meterRegistry) {
+        return new MicrometerWebSocketMetrics(meterRegistry);
+    }
+}
@@ -0,0 +1,202 @@
+package org.yeauty.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 所有{@link Decoder}和{@link Encoder}
+ * <br>查找顺序：Spring容器中声明的编解码器(按Ordered排序) &gt; 内置的{@link ProtobufCodec} &gt; 内置的{@link JacksonCodec}；
+ * 内置编解码器只在classpath中存在对应的依赖时注册，容器中有唯一的ObjectMapper时JacksonCodec使用它
+ * <br>内置编解码器几乎支持任意类型，只用于{@link org.yeauty.annotation.Payload}标注的参数和返回值，以及显式的Session.send(Object)
+ * <br>解码器在部署时按参数类型选定，编码器按对象的类型缓存
+ */
+public class CodecRegistry {
+
+    private static final boolean JACKSON_PRESENT =
+            ClassUtils.isPresent("com.fasterxml.jackson.databind.ObjectMapper", CodecRegistry.class.getClassLoader());
+
+    private static final boolean PROTOBUF_PRESENT =
+            ClassUtils.isPresent("com.google.protobuf.MessageLite", CodecRegistry.class.getClassLoader());
+
+    private final List<Decoder<?>> decoders = new CopyOnWriteArrayList<>();
+    private final List<Encoder<?>> encoders = new CopyOnWriteArrayList<>();
+
+    /**
+     * 内置的编解码器，排在{@link #decoders}、{@link #encoders}之后查找
+     */
+    private final List<Decoder<?>> defaultDecoders = new CopyOnWriteArrayList<>();
+    private final List<Encoder<?>> defaultEncoders = new CopyOnWriteArrayList<>();
+
+    /**
+     * 类型 -&gt; 编码器，没有编码器的类型也会缓存，值为{@link #NO_ENCODER}
+     */
+    private final ConcurrentMap<Class<?>, Encoder<?>> encoderCache = new ConcurrentHashMap<>();
+
+    private static final Encoder<Object> NO_ENCODER = new Encoder<Object>() {
+        @Override
+        public boolean supports(Class<?> type) {
+            return false;
+        }
+
+        @Override
+        public void encode(Object value, ByteBuf out) {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    private volatile boolean defaultsRegistered;
+
+    /**
+     * 注册容器中声明的{@link Decoder}、{@link Encoder}和内置的编解码器，部署端点前调用
+     */
+    public synchronized void registerBeans(ListableBeanFactory beanFactory) {
+        List<Object> beans = new ArrayList<>();
+        beans.addAll(beanFactory.getBeansOfType(Decoder.class).values());
+        for (Encoder<?> encoder : beanFactory.getBeansOfType(Encoder.class).values()) {
+            if (!beans.contains(encoder)) {
+                beans.add(encoder);
+            }
+        }
+        AnnotationAwareOrderComparator.sort(beans);
+        for (Object bean : beans) {
+            register(bean);
+        }
+        registerDefaults(beanFactory);
+    }
+
+    /**
+     * 注册一个编解码器，实现了{@link Decoder}和{@link Encoder}时两者都注册，先注册的优先
+     */
+    public void register(Object codec) {
+        register(codec, decoders, encoders);
+    }
+
+    private void register(Object codec, List<Decoder<?>> decoders, List<Encoder<?>> encoders) {
+        if (!(codec instanceof Decoder) && !(codec instanceof Encoder)) {
+            throw new IllegalArgumentException(codec.getClass().getName() + " is neither a Decoder nor an Encoder");
+        }
+        if (codec instanceof Decoder && !decoders.contains(codec)) {
+            decoders.add((Decoder<?>) codec);
+        }
+        if (codec instanceof Encoder && !encoders.contains(codec)) {
+            encoders.add((Encoder<?>) codec);
+        }
+        encoderCache.clear();
+    }
+
+    /**
+     * 注册内置的编解码器，多次调用只生效一次
+     *
+     * @param beanFactory 用于查找ObjectMapper，可以为null
+     */
+    public synchronized void registerDefaults(ListableBeanFactory beanFactory) {
+        if (defaultsRegistered) {
+            return;
+        }
+        defaultsRegistered = true;
+        if (PROTOBUF_PRESENT) {
+            register(new ProtobufCodec(), defaultDecoders, defaultEncoders);
+        }
+        if (JACKSON_PRESENT) {
+            register(JacksonCodecFactory.create(beanFactory), defaultDecoders, defaultEncoders);
+        }
+    }
+
+    /**
+     * @param type 参数的类型
+     * @return 没有支持该类型的解码器时返回null
+     */
+    public Decoder<Object> findDecoder(Type type) {
+        return findDecoder(type, true);
+    }
+
+    /**
+     * @param type            参数的类型
+     * @param includeDefaults 是否使用内置的编解码器
+     * @return 没有支持该类型的解码器时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public Decoder<Object> findDecoder(Type type, boolean includeDefaults) {
+        registerDefaults(null);
+        for (Decoder<?> decoder : decoders) {
+            if (decoder.supports(type)) {
+                return (Decoder<Object>) decoder;
+            }
+        }
+        if (includeDefaults) {
+            for (Decoder<?> decoder : defaultDecoders) {
+                if (decoder.supports(type)) {
+                    return (Decoder<Object>) decoder;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param type 对象的类型
+     * @return 没有支持该类型的编码器时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public Encoder<Object> findEncoder(Class<?> type) {
+        Encoder<?> encoder = encoderCache.get(type);
+        if (encoder == null) {
+            registerDefaults(null);
+            encoder = find(encoders, type);
+            if (encoder == NO_ENCODER) {
+                encoder = find(defaultEncoders, type);
+            }
+            encoderCache.put(type, encoder);
+        }
+        return encoder == NO_ENCODER ? null : (Encoder<Object>) encoder;
+    }
+
+    /**
+     * @param type            对象的类型
+     * @param includeDefaults 是否使用内置的编解码器
+     * @return 没有支持该类型的编码器时返回null
+     */
+    public Encoder<Object> findEncoder(Class<?> type, boolean includeDefaults) {
+        Encoder<Object> encoder = findEncoder(type);
+        //内置的编码器排在最后，选中它说明没有其他编码器支持该类型
+        if (encoder != null && !includeDefaults && defaultEncoders.contains(encoder)) {
+            return null;
+        }
+        return encoder;
+    }
+
+    private static Encoder<?> find(List<Encoder<?>> encoders, Class<?> type) {
+        for (Encoder<?> candidate : encoders) {
+            if (candidate.supports(type)) {
+                return candidate;
+            }
+        }
+        return NO_ENCODER;
+    }
+
+    /**
+     * 隔离对Jackson的引用，不存在Jackson时不会加载
+     */
+    private static final class JacksonCodecFactory {
+
+        static JacksonCodec create(ListableBeanFactory beanFactory) {
+            if (beanFactory != null) {
+                String[] names = beanFactory.getBeanNamesForType(ObjectMapper.class);
+                if (names.length == 1) {
+                    return new JacksonCodec(beanFactory.getBean(names[0], ObjectMapper.class));
+                }
+            }
+            return new JacksonCodec();
+        }
+    }
+}
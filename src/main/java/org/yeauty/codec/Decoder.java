@@ -0,0 +1,30 @@
+package org.yeauty.codec;
+
+import io.netty.buffer.ByteBuf;
+
+import java.lang.reflect.Type;
+
+/**
+ * 把收到的消息解码为OnMessage、OnBinary方法的参数
+ * <br>实现需要是线程安全的；声明为Spring bean即可注册，优先于内置的解码器，多个时按{@link org.springframework.core.Ordered}排序
+ *
+ * @param <T> 解码结果的类型
+ * @see CodecRegistry
+ */
+public interface Decoder<T> {
+
+    /**
+     * 部署时调用，判断能否解码为该类型的参数
+     *
+     * @param type 参数的类型，包含泛型信息
+     */
+    boolean supports(Type type);
+
+    /**
+     * 每条消息调用一次
+     *
+     * @param content 帧的内容，只在本次调用中有效，不需要release，也不要修改它的readerIndex
+     * @param type    参数的类型
+     */
+    T decode(ByteBuf content, Type type) throws Exception;
+}
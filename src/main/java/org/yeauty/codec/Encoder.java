@@ -0,0 +1,31 @@
+package org.yeauty.codec;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * 把对象编码为发送的消息，用于{@link org.yeauty.pojo.Session#send(Object)}和OnMessage、OnBinary方法的返回值
+ * <br>实现需要是线程安全的；声明为Spring bean即可注册，优先于内置的编码器，多个时按{@link org.springframework.core.Ordered}排序
+ *
+ * @param <T> 编码对象的类型
+ * @see CodecRegistry
+ */
+public interface Encoder<T> {
+
+    /**
+     * 判断能否编码该类型的对象，结果按类型缓存
+     */
+    boolean supports(Class<?> type);
+
+    /**
+     * @param value 要编码的对象
+     * @param out   从channel的池化分配器申请的buffer，直接写入即可
+     */
+    void encode(T value, ByteBuf out) throws Exception;
+
+    /**
+     * @return true时发送文本帧(内容必须是UTF-8)，否则发送二进制帧
+     */
+    default boolean isText() {
+        return false;
+    }
+}
@@ -0,0 +1,82 @@
+package org.yeauty.codec;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 基于Jackson的JSON编解码，classpath中存在jackson-databind时默认注册
+ * <br>解码直接读取帧的字节(堆内存直接读数组，直接内存通过{@link ByteBufInputStream})，不构造中间的String；
+ * 编码通过{@link ByteBufOutputStream}直接写入池化的buffer
+ * <br>每个类型的{@link ObjectReader}、{@link ObjectWriter}只创建一次
+ */
+public class JacksonCodec implements Decoder<Object>, Encoder<Object> {
+
+    private final ObjectMapper objectMapper;
+    private final boolean text;
+    private final ConcurrentMap<Type, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    public JacksonCodec() {
+        this(new ObjectMapper());
+    }
+
+    public JacksonCodec(ObjectMapper objectMapper) {
+        this(objectMapper, true);
+    }
+
+    /**
+     * @param text 是否发送文本帧，二进制格式(如MessagePack)为false
+     */
+    protected JacksonCodec(ObjectMapper objectMapper, boolean text) {
+        this.objectMapper = objectMapper;
+        this.text = text;
+    }
+
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    @Override
+    public boolean supports(Type type) {
+        return objectMapper.canDeserialize(objectMapper.constructType(type));
+    }
+
+    @Override
+    public Object decode(ByteBuf content, Type type) throws Exception {
+        ObjectReader reader = readers.computeIfAbsent(type, t -> {
+            JavaType javaType = objectMapper.constructType(t);
+            return objectMapper.readerFor(javaType);
+        });
+        if (content.hasArray()) {
+            return reader.readValue(content.array(), content.arrayOffset() + content.readerIndex(), content.readableBytes());
+        }
+        return reader.readValue((InputStream) new ByteBufInputStream(content.duplicate()));
+    }
+
+    @Override
+    public boolean supports(Class<?> type) {
+        return objectMapper.canSerialize(type);
+    }
+
+    @Override
+    public void encode(Object value, ByteBuf out) throws Exception {
+        ObjectWriter writer = writers.computeIfAbsent(value.getClass(), objectMapper::writerFor);
+        writer.writeValue((OutputStream) new ByteBufOutputStream(out), value);
+    }
+
+    @Override
+    public boolean isText() {
+        return text;
+    }
+}
@@ -0,0 +1,22 @@
+package org.yeauty.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+
+/**
+ * 基于jackson-dataformat-msgpack的MessagePack编解码，发送二进制帧
+ * <br>与JSON一样可以处理任意POJO，所以不会默认注册，需要时声明为Spring bean
+ */
+public class MessagePackCodec extends JacksonCodec {
+
+    public MessagePackCodec() {
+        this(new ObjectMapper(new MessagePackFactory()));
+    }
+
+    /**
+     * @param objectMapper 需要使用{@link MessagePackFactory}创建
+     */
+    public MessagePackCodec(ObjectMapper objectMapper) {
+        super(objectMapper, false);
+    }
+}
@@ -0,0 +1,58 @@
+package org.yeauty.codec;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.Parser;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * protobuf消息的编解码，发送二进制帧，classpath中存在protobuf-java时默认注册
+ * <br>解码直接读取帧内容的{@link ByteBuf#nioBuffer()}，编码按{@link MessageLite#getSerializedSize()}一次写入池化的buffer
+ */
+public class ProtobufCodec implements Decoder<MessageLite>, Encoder<MessageLite> {
+
+    private final ConcurrentMap<Class<?>, Parser<? extends MessageLite>> parsers = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean supports(Type type) {
+        return type instanceof Class && MessageLite.class.isAssignableFrom((Class<?>) type);
+    }
+
+    @Override
+    public MessageLite decode(ByteBuf content, Type type) throws Exception {
+        Parser<? extends MessageLite> parser = parsers.get(type);
+        if (parser == null) {
+            Class<?> clazz = (Class<?>) type;
+            MessageLite defaultInstance = (MessageLite) clazz.getMethod("getDefaultInstance").invoke(null);
+            parser = defaultInstance.getParserForType();
+            parsers.putIfAbsent(clazz, parser);
+        }
+        return parser.parseFrom(content.nioBuffer());
+    }
+
+    @Override
+    public boolean supports(Class<?> type) {
+        return MessageLite.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public void encode(MessageLite value, ByteBuf out) throws Exception {
+        int size = value.getSerializedSize();
+        out.ensureWritable(size);
+        if (out.nioBufferCount() == 1) {
+            ByteBuffer nioBuffer = out.nioBuffer(out.writerIndex(), size);
+            CodedOutputStream output = CodedOutputStream.newInstance(nioBuffer);
+            value.writeTo(output);
+            output.flush();
+            out.writerIndex(out.writerIndex() + size);
+        } else {
+            value.writeTo(new ByteBufOutputStream(out));
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package org.yeauty.exception;
+
+/**
+ * 会话的发送队列已满，消息按outboundOverflowPolicy被丢弃或连接被关闭
+ */
+public class OutboundOverflowException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    public OutboundOverflowException(String message) {
+        //慢消费者可能产生大量该异常，不填充堆栈
+        super(message, null, false, false);
+    }
+}
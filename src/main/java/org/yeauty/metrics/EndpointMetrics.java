@@ -0,0 +1,49 @@
+package org.yeauty.metrics;
+
+/**
+ * 一个端点path的指标，实现需要是线程安全的：帧在EventLoop上统计，回调方法的耗时可能在eventExecutorGroup的线程上统计
+ */
+public interface EndpointMetrics {
+
+    EndpointMetrics NOOP = new EndpointMetrics() {
+    };
+
+    /**
+     * 握手结束时调用
+     *
+     * @param nanos   从匹配到path到握手响应写出的耗时
+     * @param success 握手是否成功，BeforeHandshake中关闭连接也算失败
+     */
+    default void handshake(long nanos, boolean success) {
+    }
+
+    /**
+     * 连接打开时调用，连接关闭时一定会调用一次{@link #closed()}
+     */
+    default void opened() {
+    }
+
+    default void closed() {
+    }
+
+    /**
+     * 收到一帧，在聚合之前统计，分片消息的每一帧都会统计
+     */
+    default void frameReceived(FrameType type, int bytes) {
+    }
+
+    /**
+     * 写出一帧，在压缩之前统计
+     */
+    default void frameSent(FrameType type, int bytes) {
+    }
+
+    /**
+     * 回调方法返回或抛出异常时调用，异步返回值(CompletionStage、Publisher)的完成时间不计入
+     *
+     * @param nanos   方法的执行耗时
+     * @param success 方法是否正常返回
+     */
+    default void handlerInvoked(HandlerType type, long nanos, boolean success) {
+    }
+}
@@ -0,0 +1,45 @@
+package org.yeauty.metrics;
+
+import io.netty.handler.codec.http.websocketx.*;
+
+/**
+ * 帧的类型，用作指标的标签
+ */
+public enum FrameType {
+
+    TEXT("text"),
+    BINARY("binary"),
+    CONTINUATION("continuation"),
+    PING("ping"),
+    PONG("pong"),
+    CLOSE("close");
+
+    private final String tag;
+
+    FrameType(String tag) {
+        this.tag = tag;
+    }
+
+    public String tag() {
+        return tag;
+    }
+
+    public static FrameType of(WebSocketFrame frame) {
+        if (frame instanceof TextWebSocketFrame) {
+            return TEXT;
+        }
+        if (frame instanceof BinaryWebSocketFrame) {
+            return BINARY;
+        }
+        if (frame instanceof ContinuationWebSocketFrame) {
+            return CONTINUATION;
+        }
+        if (frame instanceof PingWebSocketFrame) {
+            return PING;
+        }
+        if (frame instanceof PongWebSocketFrame) {
+            return PONG;
+        }
+        return CLOSE;
+    }
+}
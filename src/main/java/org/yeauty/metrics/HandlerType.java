@@ -0,0 +1,25 @@
+package org.yeauty.metrics;
+
+/**
+ * 端点回调方法的类型，用作指标的标签
+ */
+public enum HandlerType {
+
+    BEFORE_HANDSHAKE("beforeHandshake"),
+    OPEN("open"),
+    MESSAGE("message"),
+    BINARY("binary"),
+    EVENT("event"),
+    ERROR("error"),
+    CLOSE("close");
+
+    private final String tag;
+
+    HandlerType(String tag) {
+        this.tag = tag;
+    }
+
+    public String tag() {
+        return tag;
+    }
+}
@@ -0,0 +1,177 @@
+package org.yeauty.metrics;
+
+import io.micrometer.core.instrument.*;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import org.yeauty.standard.SessionMailboxExecutorGroup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于Micrometer的指标，所有指标都带有port和path标签：
+ * <ul>
+ * <li>websocket.connections.active：在线连接数</li>
+ * <li>websocket.handshakes：握手次数和耗时，outcome标签区分成功与失败</li>
+ * <li>websocket.frames.received、websocket.frames.sent：按type标签统计的帧数</li>
+ * <li>websocket.bytes.received、websocket.bytes.sent：帧的payload字节数</li>
+ * <li>websocket.handler.duration：回调方法的耗时直方图，handler标签为方法类型，outcome标签区分正常返回与异常</li>
+ * </ul>
+ * 线程组的任务队列深度为websocket.executor.pending，带有name和port标签
+ * <br>所有Meter在部署时注册好，统计时只是一次原子累加，不按标签查找
+ */
+public class MicrometerWebSocketMetrics implements WebSocketMetrics {
+
+    private final MeterRegistry registry;
+
+    public MicrometerWebSocketMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public EndpointMetrics endpoint(int port, String path) {
+        return new MicrometerEndpointMetrics(registry, Tags.of("port", String.valueOf(port), "path", path));
+    }
+
+    @Override
+    public void bindExecutor(String name, String port, EventExecutorGroup group) {
+        Tags tags = Tags.of("name", name, "port", port);
+        Gauge.builder("websocket.executor.pending", group, MicrometerWebSocketMetrics::pendingTasks)
+                .tags(tags)
+                .description("Tasks waiting in the executor queues")
+                .register(registry);
+        if (group instanceof SessionMailboxExecutorGroup) {
+            Gauge.builder("websocket.executor.mailboxes.active", (SessionMailboxExecutorGroup) group, SessionMailboxExecutorGroup::activeMailboxes)
+                    .tags(tags)
+                    .description("Session mailboxes that have tasks queued or running")
+                    .register(registry);
+            Gauge.builder("websocket.executor.mailbox.depth.max", (SessionMailboxExecutorGroup) group, SessionMailboxExecutorGroup::maxMailboxDepth)
+                    .tags(tags)
+                    .description("Largest backlog seen in a single session mailbox")
+                    .register(registry);
+        }
+    }
+
+    /**
+     * SingleThreadEventExecutor#pendingTasks()需要遍历任务队列的实现，只在采集时调用
+     */
+    private static double pendingTasks(EventExecutorGroup group) {
+        if (group instanceof SessionMailboxExecutorGroup) {
+            return ((SessionMailboxExecutorGroup) group).pendingTasks();
+        }
+        long pending = 0;
+        for (EventExecutor executor : group) {
+            if (executor instanceof SingleThreadEventExecutor) {
+                pending += ((SingleThreadEventExecutor) executor).pendingTasks();
+            }
+        }
+        return pending;
+    }
+
+    private static final class MicrometerEndpointMetrics implements EndpointMetrics {
+
+        /**
+         * Gauge只持有弱引用，由本对象持有
+         */
+        private final AtomicLong activeConnections = new AtomicLong();
+
+        private final Timer handshakeSuccess;
+        private final Timer handshakeFailure;
+        private final Counter[] framesReceived;
+        private final Counter[] framesSent;
+        private final Counter bytesReceived;
+        private final Counter bytesSent;
+
+        /**
+         * 下标为HandlerType.ordinal() * 2，异常时再加1
+         */
+        private final Timer[] handlerTimers;
+
+        MicrometerEndpointMetrics(MeterRegistry registry, Tags tags) {
+            Gauge.builder("websocket.connections.active", activeConnections, AtomicLong::get)
+                    .tags(tags)
+                    .description("Open WebSocket connections")
+                    .register(registry);
+            this.handshakeSuccess = handshakeTimer(registry, tags, "success");
+            this.handshakeFailure = handshakeTimer(registry, tags, "failure");
+            FrameType[] frameTypes = FrameType.values();
+            this.framesReceived = new Counter[frameTypes.length];
+            this.framesSent = new Counter[frameTypes.length];
+            for (FrameType type : frameTypes) {
+                Tags frameTags = tags.and("type", type.tag());
+                framesReceived[type.ordinal()] = Counter.builder("websocket.frames.received")
+                        .tags(frameTags)
+                        .description("Frames received, counted before aggregation")
+                        .register(registry);
+                framesSent[type.ordinal()] = Counter.builder("websocket.frames.sent")
+                        .tags(frameTags)
+                        .description("Frames written, counted before compression")
+                        .register(registry);
+            }
+            this.bytesReceived = Counter.builder("websocket.bytes.received")
+                    .tags(tags)
+                    .baseUnit("bytes")
+                    .description("Payload bytes received")
+                    .register(registry);
+            this.bytesSent = Counter.builder("websocket.bytes.sent")
+                    .tags(tags)
+                    .baseUnit("bytes")
+                    .description("Payload bytes written")
+                    .register(registry);
+            HandlerType[] handlerTypes = HandlerType.values();
+            this.handlerTimers = new Timer[handlerTypes.length * 2];
+            for (HandlerType type : handlerTypes) {
+                handlerTimers[type.ordinal() * 2] = handlerTimer(registry, tags, type, "success");
+                handlerTimers[type.ordinal() * 2 + 1] = handlerTimer(registry, tags, type, "error");
+            }
+        }
+
+        private static Timer handshakeTimer(MeterRegistry registry, Tags tags, String outcome) {
+            return Timer.builder("websocket.handshakes")
+                    .tags(tags.and("outcome", outcome))
+                    .description("WebSocket handshakes and their latency")
+                    .register(registry);
+        }
+
+        private static Timer handlerTimer(MeterRegistry registry, Tags tags, HandlerType type, String outcome) {
+            return Timer.builder("websocket.handler.duration")
+                    .tags(tags.and("handler", type.tag(), "outcome", outcome))
+                    .description("Endpoint callback invocation time")
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+
+        @Override
+        public void handshake(long nanos, boolean success) {
+            (success ? handshakeSuccess : handshakeFailure).record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void opened() {
+            activeConnections.incrementAndGet();
+        }
+
+        @Override
+        public void closed() {
+            activeConnections.decrementAndGet();
+        }
+
+        @Override
+        public void frameReceived(FrameType type, int bytes) {
+            framesReceived[type.ordinal()].increment();
+            bytesReceived.increment(bytes);
+        }
+
+        @Override
+        public void frameSent(FrameType type, int bytes) {
+            framesSent[type.ordinal()].increment();
+            bytesSent.increment(bytes);
+        }
+
+        @Override
+        public void handlerInvoked(HandlerType type, long nanos, boolean success) {
+            handlerTimers[type.ordinal() * 2 + (success ? 0 : 1)].record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
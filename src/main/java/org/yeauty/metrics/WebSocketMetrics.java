@@ -0,0 +1,39 @@
+package org.yeauty.metrics;
+
+import io.netty.util.concurrent.EventExecutorGroup;
+
+/**
+ * 指标的扩展点，声明为Spring bean即可替换；classpath中有Micrometer时自动配置{@link MicrometerWebSocketMetrics}
+ * <br>部署时为每个端点path调用一次{@link #endpoint(int, String)}，之后每个连接直接使用缓存的{@link EndpointMetrics}，
+ * 热路径上不再按port、path查找
+ */
+public interface WebSocketMetrics {
+
+    /**
+     * 不记录任何指标，没有声明WebSocketMetrics bean时使用
+     */
+    WebSocketMetrics NOOP = new WebSocketMetrics() {
+        @Override
+        public EndpointMetrics endpoint(int port, String path) {
+            return EndpointMetrics.NOOP;
+        }
+
+        @Override
+        public void bindExecutor(String name, String port, EventExecutorGroup group) {
+        }
+    };
+
+    /**
+     * @param path 端点的path(pattern)，不是请求的实际path，标签的取值个数是有限的
+     * @return 该端点的指标，返回{@link EndpointMetrics#NOOP}时不在pipeline中添加统计帧的handler
+     */
+    EndpointMetrics endpoint(int port, String path);
+
+    /**
+     * 登记一个线程组，记录它的任务队列深度；同一个线程组可能被多个端口共享，重复登记是安全的
+     *
+     * @param name 线程组的用途，如"worker"、"eventExecutor"
+     * @param port 端口，共享的线程组为"shared"
+     */
+    void bindExecutor(String name, String port, EventExecutorGroup group);
+}
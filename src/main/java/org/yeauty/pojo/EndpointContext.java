@@ -0,0 +1,37 @@
+package org.yeauty.pojo;
+
+import org.yeauty.metrics.EndpointMetrics;
+
+/**
+ * 每个连接在握手时绑定的状态，保存在channel的一个attribute中
+ * <br>包含path对应的{@link PojoMethodMapping}、端点实例和{@link Session}，每帧只需读取这一个attribute
+ * <br>各回调方法的参数数组在open时填好会话级参数，每帧只需要填充消息相关的参数；open之前为null，此时每次调用都解析全部参数
+ * <br>帧可能在eventExecutorGroup的线程上处理，参数数组通过volatile安全发布
+ */
+final class EndpointContext {
+
+    final PojoMethodMapping methodMapping;
+    final Object implement;
+    final Session session;
+    final String path;
+    final EndpointMetrics metrics;
+
+    volatile Object[] onCloseArgs;
+    volatile Object[] onErrorArgs;
+    volatile Object[] onMessageArgs;
+    volatile Object[] onBinaryArgs;
+    volatile Object[] onEventArgs;
+
+    /**
+     * 按类型分发的OnMessage方法的参数数组，下标与{@link PojoMethodMapping#getMessageRouteInvoker(int)}一致
+     */
+    volatile Object[][] onMessageRouteArgs;
+
+    EndpointContext(PojoMethodMapping methodMapping, Object implement, Session session, String path, EndpointMetrics metrics) {
+        this.methodMapping = methodMapping;
+        this.implement = implement;
+        this.session = session;
+        this.path = path;
+        this.metrics = metrics;
+    }
+}
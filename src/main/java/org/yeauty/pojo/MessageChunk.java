@@ -0,0 +1,62 @@
+package org.yeauty.pojo;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.websocketx.ContinuationWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.util.CharsetUtil;
+
+/**
+ * 分片消息中的一帧
+ * <br>{@link org.yeauty.annotation.OnMessage}或{@link org.yeauty.annotation.OnBinary}方法声明了该类型的参数时，
+ * 对应类型的消息不再聚合，每收到一帧调用一次，内存占用与单帧大小相关而与整条消息大小无关
+ * <br>{@link #content()}只在本次回调中有效，回调返回后会被释放，需要保留时调用{@link ByteBuf#retain()}并自行释放
+ */
+public final class MessageChunk {
+
+    private final WebSocketFrame frame;
+    private final boolean text;
+
+    public MessageChunk(WebSocketFrame frame, boolean text) {
+        this.frame = frame;
+        this.text = text;
+    }
+
+    /**
+     * @return 本帧的数据
+     */
+    public ByteBuf content() {
+        return frame.content();
+    }
+
+    /**
+     * @return 是否是消息的第一帧
+     */
+    public boolean isFirst() {
+        return !(frame instanceof ContinuationWebSocketFrame);
+    }
+
+    /**
+     * @return 是否是消息的最后一帧
+     */
+    public boolean isLast() {
+        return frame.isFinalFragment();
+    }
+
+    /**
+     * @return 是否是文本消息
+     */
+    public boolean isText() {
+        return text;
+    }
+
+    /**
+     * 按UTF-8解码本帧，多字节字符可能被拆分到相邻的两帧中，需要完整文本时应先拼接{@link #content()}
+     */
+    public String text() {
+        if (frame instanceof TextWebSocketFrame) {
+            return ((TextWebSocketFrame) frame).text();
+        }
+        return frame.content().toString(CharsetUtil.UTF_8);
+    }
+}
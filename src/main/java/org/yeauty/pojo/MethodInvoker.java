@@ -0,0 +1,151 @@
+package org.yeauty.pojo;
+
+import io.netty.channel.Channel;
+import org.springframework.core.MethodParameter;
+import org.yeauty.annotation.Payload;
+import org.yeauty.exception.DeploymentException;
+import org.yeauty.support.MethodArgumentResolver;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * 端点方法调用器，部署时为每个被注解的方法创建一次
+ * <br>使用{@link MethodHandle}代替{@link Method#invoke(Object, Object...)}：没有每次调用的访问检查，
+ * 异常也不会被包装成InvocationTargetException，JIT可以把调用内联到帧处理逻辑中
+ * <br>参数按{@link MethodArgumentResolver#isSessionScoped()}分为两类：会话级参数(Session、path变量、请求参数)
+ * 在open时解析一次并缓存在会话的参数数组中，每帧复制该数组后只解析剩余的参数
+ */
+final class MethodInvoker {
+
+    private static final Object[] EMPTY_ARGS = new Object[0];
+
+    /**
+     * 统一适配为 (Object target, Object[] args)Object
+     */
+    private final MethodHandle handle;
+
+    private final MethodParameter[] parameters;
+    private final MethodArgumentResolver[] resolvers;
+
+    /**
+     * 会话级参数的下标
+     */
+    private final int[] sessionIndexes;
+
+    /**
+     * 每次调用都需要解析的参数的下标
+     */
+    private final int[] callIndexes;
+
+    /**
+     * 方法标注了{@link Payload}，返回值可以由内置的编码器编码
+     */
+    private final boolean payloadReturn;
+
+    MethodInvoker(Method method, MethodParameter[] parameters, MethodArgumentResolver[] resolvers) throws DeploymentException {
+        int parameterCount = method.getParameterCount();
+        MethodHandle methodHandle;
+        try {
+            method.setAccessible(true);
+            methodHandle = MethodHandles.lookup().unreflect(method);
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new DeploymentException("pojoMethodMapping.methodNotAccessible " + method.getName(), e);
+        }
+        if (Modifier.isStatic(method.getModifiers())) {
+            methodHandle = MethodHandles.dropArguments(methodHandle, 0, Object.class);
+        }
+        this.handle = methodHandle.asType(MethodType.genericMethodType(parameterCount + 1))
+                .asSpreader(Object[].class, parameterCount);
+        this.parameters = parameters;
+        this.resolvers = resolvers;
+        this.payloadReturn = method.isAnnotationPresent(Payload.class);
+
+        int sessionCount = 0;
+        for (MethodArgumentResolver resolver : resolvers) {
+            if (resolver.isSessionScoped()) {
+                sessionCount++;
+            }
+        }
+        this.sessionIndexes = new int[sessionCount];
+        this.callIndexes = new int[resolvers.length - sessionCount];
+        for (int i = 0, s = 0, c = 0; i < resolvers.length; i++) {
+            if (resolvers[i].isSessionScoped()) {
+                sessionIndexes[s++] = i;
+            } else {
+                callIndexes[c++] = i;
+            }
+        }
+    }
+
+    boolean isPayloadReturn() {
+        return payloadReturn;
+    }
+
+    /**
+     * 解析全部参数后调用，用于只会调用一次的方法(如BeforeHandshake、OnOpen)
+     */
+    Object invoke(Object target, Channel channel, Object object) throws Throwable {
+        return invoke(target, getMethodArgumentValues(channel, object));
+    }
+
+    /**
+     * 复用会话级参数调用
+     * <br>同一会话的回调可能在不同线程上并发执行(如EventLoop上的OnEvent与eventExecutorGroup上的OnMessage)，
+     * 所以不能写入会话的参数数组，每次调用复制一份再填充消息相关的参数
+     *
+     * @param sessionArgs {@link #resolveSessionArguments(Channel, Object)}的结果，为null时每次解析全部参数
+     */
+    Object invoke(Object target, Channel channel, Object object, Object[] sessionArgs) throws Throwable {
+        if (sessionArgs == null) {
+            return invoke(target, channel, object);
+        }
+        if (callIndexes.length == 0) {
+            return invoke(target, sessionArgs);
+        }
+        Object[] args = sessionArgs.clone();
+        for (int i : callIndexes) {
+            args[i] = resolvers[i].resolveArgument(parameters[i], channel, object);
+        }
+        return invoke(target, args);
+    }
+
+    Object invoke(Object target, Object[] args) throws Throwable {
+        return (Object) handle.invokeExact(target, args);
+    }
+
+    /**
+     * 在open时解析会话级参数
+     *
+     * @param req 握手请求
+     * @return 只填充了会话级参数的数组
+     */
+    Object[] resolveSessionArguments(Channel channel, Object req) throws Exception {
+        if (parameters.length == 0) {
+            return EMPTY_ARGS;
+        }
+        Object[] args = new Object[parameters.length];
+        for (int i : sessionIndexes) {
+            args[i] = resolvers[i].resolveArgument(parameters[i], channel, req);
+        }
+        return args;
+    }
+
+    Object[] getMethodArgumentValues(Channel channel, Object object) throws Exception {
+        if (parameters.length == 0) {
+            return EMPTY_ARGS;
+        }
+        Object[] objects = new Object[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            objects[i] = resolvers[i].resolveArgument(parameters[i], channel, object);
+        }
+        return objects;
+    }
+
+    MethodArgumentResolver[] getResolvers() {
+        return resolvers;
+    }
+}
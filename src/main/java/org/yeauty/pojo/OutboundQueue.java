@@ -0,0 +1,258 @@
+package org.yeauty.pojo;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoop;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.util.ReferenceCountUtil;
+import org.yeauty.exception.OutboundOverflowException;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 会话的发送队列，实现{@link org.yeauty.annotation.ServerEndpoint#outboundOverflowPolicy()}
+ * <br>channel可写时消息直接写入channel；不可写(超过writeBufferHighWaterMark)后消息暂存在本队列中，
+ * channel重新可写时按顺序写出；队列满时按策略丢弃消息或断开连接，慢消费者占用的内存因此有上限
+ * <br>另外支持按key合并的发送({@link #writeConflated(Object, WebSocketFrame)})：channel不可写时每个key只保留最新的一条，
+ * 重新可写后只发送最新值，与策略无关，慢消费者占用的内存与key的数量成正比而与消息数量无关
+ * <br>普通消息发送时，尚未发送的合并消息先转入普通队列，不再被替换，旧的合并值不会在更新的普通消息之后发出
+ * <br>策略为none时只在第一次合并发送时创建，之后该会话的所有发送都经过本队列，channel不可写时普通消息仍然直接写入channel，
+ * 除非前面还有未发送的合并消息
+ * <br>队列只在channel的EventLoop上访问，其他线程的发送会提交到EventLoop执行
+ */
+final class OutboundQueue {
+
+    static final String POLICY_NONE = "none";
+    static final String POLICY_DROP_NEWEST = "drop-newest";
+    static final String POLICY_DROP_OLDEST = "drop-oldest";
+    static final String POLICY_DISCONNECT = "disconnect";
+
+    static final int NONE = -1;
+    private static final int DROP_NEWEST = 0;
+    private static final int DROP_OLDEST = 1;
+    private static final int DISCONNECT = 2;
+
+    private final Channel channel;
+    private final int policy;
+    private final int capacity;
+    private final ArrayDeque<PendingWrite> pending = new ArrayDeque<>();
+
+    /**
+     * 按key合并的待发送消息，第一次使用时创建
+     */
+    private Map<Object, PendingWrite> conflated;
+
+    private OutboundQueue(Channel channel, int policy, int capacity) {
+        this.channel = channel;
+        this.policy = policy;
+        this.capacity = capacity;
+        channel.closeFuture().addListener(future -> discardAll());
+    }
+
+    /**
+     * 部署时解析并校验策略
+     *
+     * @param policy none、drop-newest、drop-oldest或disconnect
+     */
+    static int parsePolicy(String policy, int capacity) {
+        if (policy == null || policy.isEmpty() || POLICY_NONE.equalsIgnoreCase(policy)) {
+            return NONE;
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("outboundQueueCapacity must be positive: " + capacity);
+        }
+        if (POLICY_DROP_NEWEST.equalsIgnoreCase(policy)) {
+            return DROP_NEWEST;
+        }
+        if (POLICY_DROP_OLDEST.equalsIgnoreCase(policy)) {
+            return DROP_OLDEST;
+        }
+        if (POLICY_DISCONNECT.equalsIgnoreCase(policy)) {
+            return DISCONNECT;
+        }
+        throw new IllegalArgumentException("Unknown outboundOverflowPolicy '" + policy + "', expected one of none, drop-newest, drop-oldest, disconnect");
+    }
+
+    /**
+     * @param policy {@link #parsePolicy(String, int)}的结果，为none时普通消息不会因为channel不可写而暂存，只有合并发送会暂存
+     */
+    static OutboundQueue create(Channel channel, int policy, int capacity) {
+        return new OutboundQueue(channel, policy, capacity);
+    }
+
+    ChannelFuture write(WebSocketFrame frame, boolean flush) {
+        ChannelPromise promise = channel.newPromise();
+        write(frame, flush, promise);
+        return promise;
+    }
+
+    void write(WebSocketFrame frame, boolean flush, ChannelPromise promise) {
+        EventLoop loop = channel.eventLoop();
+        if (loop.inEventLoop()) {
+            write0(frame, flush, promise);
+            return;
+        }
+        try {
+            loop.execute(() -> write0(frame, flush, promise));
+        } catch (RejectedExecutionException e) {
+            ReferenceCountUtil.release(frame);
+            fail(promise, e);
+        }
+    }
+
+    private void write0(WebSocketFrame frame, boolean flush, ChannelPromise promise) {
+        //未发送的合并消息比这条消息旧，转入普通队列排在它前面
+        if (conflated != null && !conflated.isEmpty()) {
+            pending.addAll(conflated.values());
+            conflated.clear();
+        }
+        if (pending.isEmpty() && (policy == NONE || channel.isWritable())) {
+            if (flush) {
+                channel.writeAndFlush(frame, promise);
+            } else {
+                channel.write(frame, promise);
+            }
+            return;
+        }
+        if (!channel.isActive()) {
+            ReferenceCountUtil.release(frame);
+            fail(promise, new ClosedChannelException());
+            return;
+        }
+        if (policy != NONE && pending.size() >= capacity) {
+            switch (policy) {
+                case DROP_NEWEST:
+                    ReferenceCountUtil.release(frame);
+                    fail(promise, new OutboundOverflowException("outbound queue is full, the newest message is dropped"));
+                    return;
+                case DROP_OLDEST:
+                    PendingWrite oldest = pending.poll();
+                    ReferenceCountUtil.release(oldest.frame);
+                    fail(oldest.promise, new OutboundOverflowException("outbound queue is full, the oldest message is dropped"));
+                    break;
+                default:
+                    ReferenceCountUtil.release(frame);
+                    fail(promise, new OutboundOverflowException("outbound queue is full, the slow consumer is disconnected"));
+                    //channel已经不可写，close帧也无法及时送达，直接关闭
+                    channel.close();
+                    return;
+            }
+        }
+        pending.add(new PendingWrite(frame, promise));
+    }
+
+    /**
+     * 按key合并发送：channel可写时直接发送，否则替换该key尚未发送的消息
+     * <br>被替换的消息不会发送，它的future以{@link OutboundOverflowException}失败
+     */
+    ChannelFuture writeConflated(Object key, WebSocketFrame frame) {
+        ChannelPromise promise = channel.newPromise();
+        EventLoop loop = channel.eventLoop();
+        if (loop.inEventLoop()) {
+            writeConflated0(key, frame, promise);
+        } else {
+            try {
+                loop.execute(() -> writeConflated0(key, frame, promise));
+            } catch (RejectedExecutionException e) {
+                ReferenceCountUtil.release(frame);
+                fail(promise, e);
+            }
+        }
+        return promise;
+    }
+
+    private void writeConflated0(Object key, WebSocketFrame frame, ChannelPromise promise) {
+        if (pending.isEmpty() && (conflated == null || conflated.isEmpty()) && channel.isWritable()) {
+            channel.writeAndFlush(frame, promise);
+            return;
+        }
+        if (!channel.isActive()) {
+            ReferenceCountUtil.release(frame);
+            fail(promise, new ClosedChannelException());
+            return;
+        }
+        if (conflated == null) {
+            conflated = new LinkedHashMap<>();
+        }
+        PendingWrite previous = conflated.put(key, new PendingWrite(frame, promise));
+        if (previous != null) {
+            ReferenceCountUtil.release(previous.frame);
+            fail(previous.promise, new OutboundOverflowException("superseded by a newer message with the same key"));
+        }
+    }
+
+    /**
+     * channel可写性变化时调用，可以在任意线程调用
+     */
+    void writabilityChanged() {
+        EventLoop loop = channel.eventLoop();
+        if (loop.inEventLoop()) {
+            drain();
+        } else {
+            loop.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        boolean written = false;
+        while (!pending.isEmpty() && channel.isWritable()) {
+            PendingWrite write = pending.poll();
+            channel.write(write.frame, write.promise);
+            written = true;
+        }
+        if (conflated != null && pending.isEmpty()) {
+            Iterator<PendingWrite> iterator = conflated.values().iterator();
+            while (iterator.hasNext() && channel.isWritable()) {
+                PendingWrite write = iterator.next();
+                iterator.remove();
+                channel.write(write.frame, write.promise);
+                written = true;
+            }
+        }
+        if (written) {
+            channel.flush();
+        }
+    }
+
+    private void discardAll() {
+        ClosedChannelException cause = new ClosedChannelException();
+        PendingWrite write;
+        while ((write = pending.poll()) != null) {
+            ReferenceCountUtil.release(write.frame);
+            fail(write.promise, cause);
+        }
+        if (conflated != null) {
+            for (PendingWrite conflatedWrite : conflated.values()) {
+                ReferenceCountUtil.release(conflatedWrite.frame);
+                fail(conflatedWrite.promise, cause);
+            }
+            conflated.clear();
+        }
+    }
+
+    /**
+     * 广播使用voidPromise，丢弃时不触发OnError
+     */
+    private static void fail(ChannelPromise promise, Throwable cause) {
+        if (!promise.isVoid()) {
+            promise.tryFailure(cause);
+        }
+    }
+
+    private static final class PendingWrite {
+
+        private final WebSocketFrame frame;
+        private final ChannelPromise promise;
+
+        PendingWrite(WebSocketFrame frame, ChannelPromise promise) {
+            this.frame = frame;
+            this.promise = promise;
+        }
+    }
+}
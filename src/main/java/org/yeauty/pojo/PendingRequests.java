@@ -0,0 +1,238 @@
+package org.yeauty.pojo;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.handler.codec.http.websocketx.ContinuationWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.util.CharsetUtil;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+import io.netty.util.collection.LongObjectHashMap;
+import io.netty.util.collection.LongObjectMap;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.yeauty.codec.CodecRegistry;
+import org.yeauty.codec.Decoder;
+import org.yeauty.support.MessageTypeExtractor;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 一个会话中等待响应的请求，见{@link Session#request(java.util.function.LongFunction, Class, long, TimeUnit)}
+ * <br>关联id从随机值开始按会话递增，客户端消息中恰好带有同名字段的小整数不会被当成响应吞掉；等待中的请求保存在以long为键的{@link LongObjectHashMap}中，不装箱；
+ * 超时由所有会话共享的{@link HashedWheelTimer}处理，不为每个请求创建ScheduledFuture
+ * <br>请求可以在任意线程发出，响应在处理消息的线程上完成，map的访问使用会话自己的锁，不同会话之间没有竞争
+ */
+final class PendingRequests {
+
+    private static final ClosedChannelException CLOSED = new ClosedChannelException();
+
+    static {
+        CLOSED.setStackTrace(new StackTraceElement[0]);
+    }
+
+    private final Session session;
+    private final MessageTypeExtractor idExtractor;
+    private final CodecRegistry codecRegistry;
+
+    private final LongObjectMap<Request<?>> requests = new LongObjectHashMap<>();
+
+    /**
+     * 不超过2^52，JavaScript客户端可以精确表示
+     */
+    private long nextId = ThreadLocalRandom.current().nextLong(1L << 52);
+    private boolean closed;
+
+    /**
+     * 处理消息的线程不加锁读取，没有等待中的请求时直接跳过
+     */
+    private volatile int size;
+
+    PendingRequests(Session session, MessageTypeExtractor idExtractor, CodecRegistry codecRegistry) {
+        this.session = session;
+        this.idExtractor = idExtractor;
+        this.codecRegistry = codecRegistry;
+    }
+
+    /**
+     * 分配关联id并开始计时
+     */
+    <T> Request<T> register(Class<T> responseType, long timeout, TimeUnit unit) {
+        Decoder<Object> decoder = null;
+        if (responseType != String.class && responseType != byte[].class) {
+            decoder = codecRegistry == null ? null : codecRegistry.findDecoder(responseType);
+            if (decoder == null) {
+                throw new IllegalArgumentException("No Decoder for " + responseType.getName());
+            }
+        }
+        Request<T> request;
+        synchronized (this) {
+            request = new Request<>(this, ++nextId, responseType, decoder);
+            if (closed) {
+                request.completeExceptionally(CLOSED);
+                return request;
+            }
+            requests.put(request.id, request);
+            size = requests.size();
+        }
+        Timeout requestTimeout = TimerHolder.TIMER.newTimeout(request, timeout, unit);
+        request.timeout = requestTimeout;
+        //设置timeout之前请求可能已经被移除(响应、取消或会话关闭)，那时读取到的timeout为null，由这里取消；
+        //移除和这里的检查都在锁内，之后才移除的请求一定能读取到timeout
+        synchronized (this) {
+            if (requests.get(request.id) == request) {
+                return request;
+            }
+        }
+        requestTimeout.cancel();
+        return request;
+    }
+
+    /**
+     * 在OnMessage、OnBinary分发之前调用
+     *
+     * @return 是否是某个请求的响应，是时消息不再交给OnMessage、OnBinary
+     */
+    boolean complete(WebSocketFrame frame) {
+        if (size == 0 || !frame.isFinalFragment() || frame instanceof ContinuationWebSocketFrame) {
+            return false;
+        }
+        String value = idExtractor.extract(frame.content());
+        if (value == null) {
+            return false;
+        }
+        long id;
+        try {
+            id = Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        Request<?> request = remove(id);
+        if (request == null) {
+            return false;
+        }
+        request.completeWith(frame.content());
+        return true;
+    }
+
+    void fail(long id, Throwable cause) {
+        Request<?> request = remove(id);
+        if (request != null) {
+            request.fail(cause);
+        }
+    }
+
+    /**
+     * 会话关闭时调用，之后的请求直接失败
+     */
+    void failAll() {
+        List<Request<?>> failed;
+        synchronized (this) {
+            closed = true;
+            failed = new ArrayList<>(requests.values());
+            requests.clear();
+            size = 0;
+        }
+        for (Request<?> request : failed) {
+            request.fail(CLOSED);
+        }
+    }
+
+    private Request<?> remove(long id) {
+        synchronized (this) {
+            Request<?> request = requests.remove(id);
+            if (request != null) {
+                size = requests.size();
+            }
+            return request;
+        }
+    }
+
+    /**
+     * 请求本身就是返回给调用方的future和超时任务，每个请求只创建这一个对象和一个Timeout
+     */
+    static final class Request<T> extends CompletableFuture<T> implements TimerTask {
+
+        private final PendingRequests owner;
+        final long id;
+        private final Class<T> responseType;
+        private final Decoder<Object> decoder;
+        private volatile Timeout timeout;
+
+        Request(PendingRequests owner, long id, Class<T> responseType, Decoder<Object> decoder) {
+            this.owner = owner;
+            this.id = id;
+            this.responseType = responseType;
+            this.decoder = decoder;
+        }
+
+        /**
+         * 调用方取消时立即从等待列表中移除，之后同一id的消息照常分发
+         */
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                owner.remove(id);
+                cancelTimeout();
+            }
+            return cancelled;
+        }
+
+        @Override
+        public void run(Timeout timeout) {
+            if (owner.remove(id) != null) {
+                completeExceptionally(new TimeoutException("request " + id + " of session " + owner.session.id() + " timed out"));
+            }
+        }
+
+        void fail(Throwable cause) {
+            cancelTimeout();
+            completeExceptionally(cause);
+        }
+
+        /**
+         * 在处理消息的线程上解码，帧在返回后释放
+         */
+        @SuppressWarnings("unchecked")
+        void completeWith(ByteBuf content) {
+            cancelTimeout();
+            try {
+                Object response;
+                if (responseType == String.class) {
+                    response = content.toString(CharsetUtil.UTF_8);
+                } else if (responseType == byte[].class) {
+                    response = ByteBufUtil.getBytes(content);
+                } else {
+                    response = decoder.decode(content, responseType);
+                }
+                complete((T) response);
+            } catch (Throwable t) {
+                completeExceptionally(t);
+            }
+        }
+
+        private void cancelTimeout() {
+            Timeout timeout = this.timeout;
+            if (timeout != null) {
+                timeout.cancel();
+            }
+        }
+    }
+
+    private static final class TimerHolder {
+
+        /**
+         * 10ms一格，超时的精度足够，所有会话共享一个线程
+         */
+        static final Timer TIMER = new HashedWheelTimer(new DefaultThreadFactory("websocket-request-timeout", true),
+                10, TimeUnit.MILLISECONDS);
+    }
+}
@@ -2,18 +2,17 @@ package org.yeauty.pojo;
 
 import io.netty.channel.Channel;
 import io.netty.handler.codec.http.FullHttpRequest;
-import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
-import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.WebSocketFrame;
-import io.netty.util.Attribute;
 import io.netty.util.AttributeKey;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 import org.springframework.beans.TypeMismatchException;
+import org.yeauty.metrics.EndpointMetrics;
+import org.yeauty.metrics.HandlerType;
+import org.yeauty.metrics.WebSocketMetrics;
 import org.yeauty.standard.ServerEndpointConfig;
 import org.yeauty.support.*;
 
-import java.lang.reflect.Method;
 import java.util.*;
 
 /**
@@ -22,11 +21,9 @@ import java.util.*;
  */
 public class PojoEndpointServer {
 
-    private static final AttributeKey<Object> POJO_KEY = AttributeKey.valueOf("WEBSOCKET_IMPLEMENT");
-
     public static final AttributeKey<Session> SESSION_KEY = AttributeKey.valueOf("WEBSOCKET_SESSION");
 
-    private static final AttributeKey<String> PATH_KEY = AttributeKey.valueOf("WEBSOCKET_PATH");
+    private static final AttributeKey<EndpointContext> CONTEXT_KEY = AttributeKey.valueOf("WEBSOCKET_CONTEXT");
 
     public static final AttributeKey<Map<String, String>> URI_TEMPLATE = AttributeKey.valueOf("WEBSOCKET_URI_TEMPLATE");
 
@@ -36,38 +33,85 @@ public class PojoEndpointServer {
 
     private final ServerEndpointConfig config;
 
-    private Set<WsPathMatcher> pathMatchers = new HashSet<>();
+    private final SessionRegistry sessionRegistry;
+
+    private final TopicBroker topicBroker;
+
+    /**
+     * 解析后的outboundOverflowPolicy
+     */
+    private final int outboundPolicy;
+
+    private final WebSocketMetrics metrics;
+
+    /**
+     * 每个path的指标在部署时创建，握手时绑定到{@link EndpointContext}
+     */
+    private final Map<String, EndpointMetrics> pathMetricsMap = new HashMap<>();
+
+    private final PathRouter pathRouter = new PathRouter();
 
     private static final InternalLogger logger = InternalLoggerFactory.getInstance(PojoEndpointServer.class);
 
     public PojoEndpointServer(PojoMethodMapping methodMapping, ServerEndpointConfig config, String path) {
-        addPathPojoMethodMapping(path, methodMapping);
+        this(methodMapping, config, path, null, null);
+    }
+
+    /**
+     * @param sessionRegistry 登记在线会话，为null时不登记
+     * @param topicBroker     {@link Session#subscribe(String)}使用的主题订阅，为null时会话不能订阅
+     */
+    public PojoEndpointServer(PojoMethodMapping methodMapping, ServerEndpointConfig config, String path, SessionRegistry sessionRegistry, TopicBroker topicBroker) {
+        this(methodMapping, config, path, sessionRegistry, topicBroker, WebSocketMetrics.NOOP);
+    }
+
+    /**
+     * @param metrics 记录连接、帧和回调耗时等指标，为null时不记录
+     */
+    public PojoEndpointServer(PojoMethodMapping methodMapping, ServerEndpointConfig config, String path, SessionRegistry sessionRegistry, TopicBroker topicBroker, WebSocketMetrics metrics) {
         this.config = config;
+        this.sessionRegistry = sessionRegistry;
+        this.topicBroker = topicBroker;
+        this.metrics = metrics == null ? WebSocketMetrics.NOOP : metrics;
+        this.outboundPolicy = OutboundQueue.parsePolicy(config.getOutboundOverflowPolicy(), config.getOutboundQueueCapacity());
+        addPathPojoMethodMapping(path, methodMapping);
     }
 
     public boolean hasBeforeHandshake(Channel channel, String path) {
-        PojoMethodMapping methodMapping = getPojoMethodMapping(path, channel);
+        PojoMethodMapping methodMapping = getPojoMethodMapping(path);
         return methodMapping.getBeforeHandshake()!=null;
     }
 
-    public void doBeforeHandshake(Channel channel, FullHttpRequest req, String path) {
-        PojoMethodMapping methodMapping = null;
-        methodMapping = getPojoMethodMapping(path, channel);
+    /**
+     * @return path对应的OnMessage方法是否以{@link MessageChunk}逐帧接收文本消息
+     */
+    public boolean isStreamingText(String path) {
+        return getPojoMethodMapping(path).isStreamingText();
+    }
 
-        Object implement = null;
-        try {
-            implement = methodMapping.getEndpointInstance();
-        } catch (Exception e) {
-            logger.error(e);
+    /**
+     * @return path对应的OnBinary方法是否以{@link MessageChunk}逐帧接收二进制消息
+     */
+    public boolean isStreamingBinary(String path) {
+        return getPojoMethodMapping(path).isStreamingBinary();
+    }
+
+    /**
+     * @return path对应的端点允许的分片消息聚合后的最大长度
+     */
+    public int getMaxContentLength(String path) {
+        return getPojoMethodMapping(path).getMaxContentLength();
+    }
+
+    public void doBeforeHandshake(Channel channel, FullHttpRequest req, String path) {
+        EndpointContext context = bindEndpointContext(channel, path);
+        if (context == null) {
             return;
         }
-        channel.attr(POJO_KEY).set(implement);
-        Session session = new Session(channel);
-        channel.attr(SESSION_KEY).set(session);
-        Method beforeHandshake = methodMapping.getBeforeHandshake();
+        MethodInvoker beforeHandshake = context.methodMapping.getBeforeHandshakeInvoker();
         if (beforeHandshake != null) {
             try {
-                beforeHandshake.invoke(implement, methodMapping.getBeforeHandshakeArgs(channel, req));
+                invoke(context, HandlerType.BEFORE_HANDSHAKE, beforeHandshake, channel, req, null);
             } catch (TypeMismatchException e) {
                 throw e;
             } catch (Throwable t) {
@@ -77,25 +121,36 @@ public class PojoEndpointServer {
     }
 
     public void doOnOpen(Channel channel, FullHttpRequest req, String path) {
-        PojoMethodMapping methodMapping = getPojoMethodMapping(path, channel);
-
-        Object implement = channel.attr(POJO_KEY).get();
-        if (implement==null){
-            try {
-                implement = methodMapping.getEndpointInstance();
-                channel.attr(POJO_KEY).set(implement);
-            } catch (Exception e) {
-                logger.error(e);
+        EndpointContext context = channel.attr(CONTEXT_KEY).get();
+        if (context == null) {
+            context = bindEndpointContext(channel, path);
+            if (context == null) {
                 return;
             }
-            Session session = new Session(channel);
-            channel.attr(SESSION_KEY).set(session);
+        }
+        PojoMethodMapping methodMapping = context.methodMapping;
+        //关闭时通过closeFuture减少，与open一一对应，握手失败的连接不计入
+        EndpointMetrics endpointMetrics = context.metrics;
+        endpointMetrics.opened();
+        channel.closeFuture().addListener(future -> endpointMetrics.closed());
+        //在OnOpen之前登记，OnOpen中就可以为会话添加自定义索引
+        if (sessionRegistry != null) {
+            sessionRegistry.register(context.session, context.path);
         }
 
-        Method onOpenMethod = methodMapping.getOnOpen();
+        try {
+            //会话级参数只在open时解析一次
+            methodMapping.resolveSessionArguments(context, channel, req);
+        } catch (TypeMismatchException e) {
+            throw e;
+        } catch (Throwable t) {
+            logger.error(t);
+        }
+
+        MethodInvoker onOpenMethod = methodMapping.getOnOpenInvoker();
         if (onOpenMethod != null) {
             try {
-                onOpenMethod.invoke(implement, methodMapping.getOnOpenArgs(channel, req));
+                invoke(context, HandlerType.OPEN, onOpenMethod, channel, req, null);
             } catch (TypeMismatchException e) {
                 throw e;
             } catch (Throwable t) {
@@ -105,25 +160,26 @@ public class PojoEndpointServer {
     }
 
     public void doOnClose(Channel channel) {
-        Attribute<String> attrPath = channel.attr(PATH_KEY);
-        PojoMethodMapping methodMapping = null;
-        if (pathMethodMappingMap.size() == 1) {
-            methodMapping = pathMethodMappingMap.values().iterator().next();
-        } else {
-            String path = attrPath.get();
-            methodMapping = pathMethodMappingMap.get(path);
-            if (methodMapping == null) {
-                return;
-            }
+        //不依赖端点上下文，握手中途失败的连接也会被移除
+        if (sessionRegistry != null) {
+            sessionRegistry.unregister(channel);
         }
-        if (methodMapping.getOnClose() != null) {
-            if (!channel.hasAttr(SESSION_KEY)) {
-                return;
+        EndpointContext context = channel.attr(CONTEXT_KEY).get();
+        if (context == null) {
+            return;
+        }
+        MethodInvoker onClose = context.methodMapping.getOnCloseInvoker();
+        if (onClose != null) {
+            try {
+                invoke(context, HandlerType.CLOSE, onClose, channel, null, context.onCloseArgs);
+            } catch (Throwable t) {
+                logger.error(t);
             }
-            Object implement = channel.attr(POJO_KEY).get();
+        }
+        //pooled模式下实例会被其他连接复用，先解除绑定，之后的回调不会再访问该实例
+        if (context.methodMapping.isPooled() && channel.attr(CONTEXT_KEY).compareAndSet(context, null)) {
             try {
-                methodMapping.getOnClose().invoke(implement,
-                        methodMapping.getOnCloseArgs(channel));
+                context.methodMapping.releaseEndpointInstance(context.implement);
             } catch (Throwable t) {
                 logger.error(t);
             }
@@ -132,23 +188,14 @@ public class PojoEndpointServer {
 
 
     public void doOnError(Channel channel, Throwable throwable) {
-        Attribute<String> attrPath = channel.attr(PATH_KEY);
-        PojoMethodMapping methodMapping = null;
-        if (pathMethodMappingMap.size() == 1) {
-            methodMapping = pathMethodMappingMap.values().iterator().next();
-        } else {
-            String path = attrPath.get();
-            methodMapping = pathMethodMappingMap.get(path);
+        EndpointContext context = channel.attr(CONTEXT_KEY).get();
+        if (context == null) {
+            return;
         }
-        if (methodMapping.getOnError() != null) {
-            if (!channel.hasAttr(SESSION_KEY)) {
-                return;
-            }
-            Object implement = channel.attr(POJO_KEY).get();
+        MethodInvoker onError = context.methodMapping.getOnErrorInvoker();
+        if (onError != null) {
             try {
-                Method method = methodMapping.getOnError();
-                Object[] args = methodMapping.getOnErrorArgs(channel, throwable);
-                method.invoke(implement, args);
+                invoke(context, HandlerType.ERROR, onError, channel, throwable, context.onErrorArgs);
             } catch (Throwable t) {
                 logger.error(t);
             }
@@ -156,67 +203,107 @@ public class PojoEndpointServer {
     }
 
     public void doOnMessage(Channel channel, WebSocketFrame frame) {
-        Attribute<String> attrPath = channel.attr(PATH_KEY);
-        PojoMethodMapping methodMapping = null;
-        if (pathMethodMappingMap.size() == 1) {
-            methodMapping = pathMethodMappingMap.values().iterator().next();
-        } else {
-            String path = attrPath.get();
-            methodMapping = pathMethodMappingMap.get(path);
+        EndpointContext context = channel.attr(CONTEXT_KEY).get();
+        if (context == null) {
+            return;
         }
-        if (methodMapping.getOnMessage() != null) {
-            TextWebSocketFrame textFrame = (TextWebSocketFrame) frame;
-            Object implement = channel.attr(POJO_KEY).get();
-            try {
-                methodMapping.getOnMessage().invoke(implement, methodMapping.getOnMessageArgs(channel, textFrame));
-            } catch (Throwable t) {
-                logger.error(t);
+        try {
+            //Session.request的响应不再分发
+            if (context.session.completeRequest(frame)) {
+                return;
+            }
+            MethodInvoker onMessage;
+            Object[] args;
+            int route = context.methodMapping.routeMessage(frame.content());
+            if (route >= 0) {
+                onMessage = context.methodMapping.getMessageRouteInvoker(route);
+                Object[][] routeArgs = context.onMessageRouteArgs;
+                args = routeArgs == null ? null : routeArgs[route];
+            } else {
+                onMessage = context.methodMapping.getOnMessageInvoker();
+                args = context.onMessageArgs;
+            }
+            //没有对应方法的消息直接丢弃，不解析参数
+            if (onMessage != null) {
+                Object result = invoke(context, HandlerType.MESSAGE, onMessage, channel, frame, args);
+                ReturnValueHandler.handle(this, context.session, result, onMessage.isPayloadReturn());
             }
+        } catch (Throwable t) {
+            logger.error(t);
         }
     }
 
     public void doOnBinary(Channel channel, WebSocketFrame frame) {
-        Attribute<String> attrPath = channel.attr(PATH_KEY);
-        PojoMethodMapping methodMapping = null;
-        if (pathMethodMappingMap.size() == 1) {
-            methodMapping = pathMethodMappingMap.values().iterator().next();
-        } else {
-            String path = attrPath.get();
-            methodMapping = pathMethodMappingMap.get(path);
+        EndpointContext context = channel.attr(CONTEXT_KEY).get();
+        if (context == null) {
+            return;
         }
-        if (methodMapping.getOnBinary() != null) {
-            BinaryWebSocketFrame binaryWebSocketFrame = (BinaryWebSocketFrame) frame;
-            Object implement = channel.attr(POJO_KEY).get();
-            try {
-                methodMapping.getOnBinary().invoke(implement, methodMapping.getOnBinaryArgs(channel, binaryWebSocketFrame));
-            } catch (Throwable t) {
-                logger.error(t);
+        try {
+            //Session.request的响应不再分发
+            if (context.session.completeRequest(frame)) {
+                return;
             }
+            MethodInvoker onBinary = context.methodMapping.getOnBinaryInvoker();
+            if (onBinary != null) {
+                Object result = invoke(context, HandlerType.BINARY, onBinary, channel, frame, context.onBinaryArgs);
+                ReturnValueHandler.handle(this, context.session, result, onBinary.isPayloadReturn());
+            }
+        } catch (Throwable t) {
+            logger.error(t);
+        }
+    }
+
+    /**
+     * channel重新可写时写出会话发送队列中暂存的消息，并继续向返回值Publisher请求数据
+     */
+    public void doOnWritabilityChanged(Channel channel) {
+        Session session = channel.attr(SESSION_KEY).get();
+        if (session == null) {
+            return;
+        }
+        OutboundQueue outboundQueue = session.outboundQueue;
+        if (outboundQueue != null) {
+            outboundQueue.writabilityChanged();
         }
+        session.fireWritable();
     }
 
     public void doOnEvent(Channel channel, Object evt) {
-        Attribute<String> attrPath = channel.attr(PATH_KEY);
-        PojoMethodMapping methodMapping = null;
-        if (pathMethodMappingMap.size() == 1) {
-            methodMapping = pathMethodMappingMap.values().iterator().next();
-        } else {
-            String path = attrPath.get();
-            methodMapping = pathMethodMappingMap.get(path);
+        EndpointContext context = channel.attr(CONTEXT_KEY).get();
+        if (context == null) {
+            return;
         }
-        if (methodMapping.getOnEvent() != null) {
-            if (!channel.hasAttr(SESSION_KEY)) {
-                return;
-            }
-            Object implement = channel.attr(POJO_KEY).get();
+        MethodInvoker onEvent = context.methodMapping.getOnEventInvoker();
+        if (onEvent != null) {
             try {
-                methodMapping.getOnEvent().invoke(implement, methodMapping.getOnEventArgs(channel, evt));
+                invoke(context, HandlerType.EVENT, onEvent, channel, evt, context.onEventArgs);
             } catch (Throwable t) {
                 logger.error(t);
             }
         }
     }
 
+    /**
+     * 调用回调方法并记录耗时
+     *
+     * @param args 会话级参数，为null时解析全部参数
+     */
+    private static Object invoke(EndpointContext context, HandlerType type, MethodInvoker invoker, Channel channel, Object object, Object[] args) throws Throwable {
+        if (context.metrics == EndpointMetrics.NOOP) {
+            // 未开启指标时不计时
+            return invoker.invoke(context.implement, channel, object, args);
+        }
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Object result = invoker.invoke(context.implement, channel, object, args);
+            success = true;
+            return result;
+        } finally {
+            context.metrics.handlerInvoked(type, System.nanoTime() - start, success);
+        }
+    }
+
     public String getHost() {
         return config.getHost();
     }
@@ -225,28 +312,73 @@ public class PojoEndpointServer {
         return config.getPort();
     }
 
-    public Set<WsPathMatcher> getPathMatcherSet() {
-        return pathMatchers;
+    /**
+     * @return 这个端口上所有端点的path
+     */
+    public Set<String> getPaths() {
+        return Collections.unmodifiableSet(pathMethodMappingMap.keySet());
+    }
+
+    /**
+     * 握手时用于匹配path的路由，包含{@link #getPaths()}中的所有pattern
+     */
+    public PathRouter getPathRouter() {
+        return pathRouter;
+    }
+
+    /**
+     * @return path对应的指标，没有配置指标时为{@link EndpointMetrics#NOOP}
+     */
+    public EndpointMetrics getEndpointMetrics(String path) {
+        EndpointMetrics endpointMetrics = pathMetricsMap.get(path);
+        return endpointMetrics == null ? EndpointMetrics.NOOP : endpointMetrics;
+    }
+
+    public WebSocketMetrics getMetrics() {
+        return metrics;
     }
 
     public void addPathPojoMethodMapping(String path, PojoMethodMapping pojoMethodMapping) {
         pathMethodMappingMap.put(path, pojoMethodMapping);
+        pathMetricsMap.put(path, metrics.endpoint(config.getPort(), path));
         for (MethodArgumentResolver onOpenArgResolver : pojoMethodMapping.getOnOpenArgResolvers()) {
             if (onOpenArgResolver instanceof PathVariableMethodArgumentResolver || onOpenArgResolver instanceof PathVariableMapMethodArgumentResolver) {
-                pathMatchers.add(new AntPathMatcherWrapper(path));
+                pathRouter.addPattern(path, true);
                 return;
             }
         }
-        pathMatchers.add(new DefaultPathMatcher(path));
+        pathRouter.addPattern(path, false);
+    }
+
+    /**
+     * 握手时创建端点实例和Session，并把path对应的PojoMethodMapping一起绑定到channel上
+     * <br>之后每一帧只需要读取这一个attribute，不再按path查找
+     */
+    private EndpointContext bindEndpointContext(Channel channel, String path) {
+        PojoMethodMapping methodMapping = getPojoMethodMapping(path);
+        Object implement;
+        try {
+            implement = methodMapping.getEndpointInstance();
+        } catch (Exception e) {
+            logger.error(e);
+            return null;
+        }
+        //策略为none时不创建发送队列，第一次合并发送时才创建
+        OutboundQueue outboundQueue = outboundPolicy == OutboundQueue.NONE ? null
+                : OutboundQueue.create(channel, outboundPolicy, config.getOutboundQueueCapacity());
+        Session session = new Session(channel, topicBroker, outboundQueue,
+                methodMapping.getCodecRegistry(), methodMapping.getRequestIdExtractor());
+        channel.attr(SESSION_KEY).set(session);
+        EndpointContext context = new EndpointContext(methodMapping, implement, session, path, getEndpointMetrics(path));
+        channel.attr(CONTEXT_KEY).set(context);
+        return context;
     }
 
-    private PojoMethodMapping getPojoMethodMapping(String path, Channel channel) {
+    private PojoMethodMapping getPojoMethodMapping(String path) {
         PojoMethodMapping methodMapping;
         if (pathMethodMappingMap.size() == 1) {
             methodMapping = pathMethodMappingMap.values().iterator().next();
         } else {
-            Attribute<String> attrPath = channel.attr(PATH_KEY);
-            attrPath.set(path);
             methodMapping = pathMethodMappingMap.get(path);
             if (methodMapping == null) {
                 throw new RuntimeException("path " + path + " is not in pathMethodMappingMap ");
@@ -1,9 +1,8 @@
 package org.yeauty.pojo;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.handler.codec.http.FullHttpRequest;
-import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
-import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
 import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
 import org.springframework.beans.factory.support.AbstractBeanFactory;
 import org.springframework.context.ApplicationContext;
@@ -11,21 +10,26 @@ import org.springframework.core.DefaultParameterNameDiscoverer;
 import org.springframework.core.MethodParameter;
 import org.springframework.core.ParameterNameDiscoverer;
 import org.yeauty.annotation.*;
+import org.yeauty.codec.CodecRegistry;
 import org.yeauty.exception.DeploymentException;
 import org.yeauty.support.*;
 
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
 
 public class PojoMethodMapping {
 
     private static final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
 
+    public static final String INSTANCE_MODE_PROTOTYPE = "prototype";
+    public static final String INSTANCE_MODE_SINGLETON = "singleton";
+    public static final String INSTANCE_MODE_POOLED = "pooled";
+
     private final Method beforeHandshake;
     private final Method onOpen;
     private final Method onClose;
@@ -33,6 +37,13 @@ public class PojoMethodMapping {
     private final Method onMessage;
     private final Method onBinary;
     private final Method onEvent;
+    private final MethodInvoker beforeHandshakeInvoker;
+    private final MethodInvoker onOpenInvoker;
+    private final MethodInvoker onCloseInvoker;
+    private final MethodInvoker onErrorInvoker;
+    private final MethodInvoker onMessageInvoker;
+    private final MethodInvoker onBinaryInvoker;
+    private final MethodInvoker onEventInvoker;
     private final MethodParameter[] beforeHandshakeParameters;
     private final MethodParameter[] onOpenParameters;
     private final MethodParameter[] onCloseParameters;
@@ -50,11 +61,119 @@ public class PojoMethodMapping {
     private final Class pojoClazz;
     private final ApplicationContext applicationContext;
     private final AbstractBeanFactory beanFactory;
+    private final CodecRegistry codecRegistry;
+
+    /**
+     * {@link OnMessage#type()} -&gt; {@link #messageRouteInvokers}的下标，部署后不再修改
+     */
+    private final Map<String, Integer> messageRoutes = new HashMap<>();
+    private final MethodInvoker[] messageRouteInvokers;
+    private final MessageTypeExtractor messageTypeExtractor;
+
+    /**
+     * 从响应中读取{@link Session#request(java.util.function.LongFunction, Class, long, java.util.concurrent.TimeUnit)}的关联id
+     */
+    private final MessageTypeExtractor requestIdExtractor;
+    private final boolean singleton;
+    private final boolean streamingText;
+    private final boolean streamingBinary;
+
+    /**
+     * 分片消息聚合后允许的最大长度，见{@link ServerEndpoint#maxContentLength()}
+     */
+    private final int maxContentLength;
+
+    /**
+     * pooled模式下回收的端点实例，其他模式为null
+     */
+    private final ArrayBlockingQueue<Object> instancePool;
+
+    /**
+     * prototype和pooled模式下创建实例用的构造器，singleton模式为null
+     */
+    private final Constructor<?> instanceConstructor;
+
+    /**
+     * pooled模式下实例放回池中之前调用的{@link OnRecycle}方法，其他模式为null
+     */
+    private final Method onRecycle;
+    private volatile AutowiredAnnotationBeanPostProcessor autowiredPostProcessor;
+
+    /**
+     * singleton模式下所有连接共用的bean，部署时解析，其他模式为null
+     */
+    private final Object singletonInstance;
 
     public PojoMethodMapping(Class<?> pojoClazz, ApplicationContext context, AbstractBeanFactory beanFactory) throws DeploymentException {
+        this(pojoClazz, context, beanFactory, INSTANCE_MODE_PROTOTYPE, 0);
+    }
+
+    /**
+     * @param instanceMode     端点实例的创建方式，见{@link ServerEndpoint#instanceMode()}
+     * @param instancePoolSize pooled模式下最多保留的空闲实例数
+     */
+    public PojoMethodMapping(Class<?> pojoClazz, ApplicationContext context, AbstractBeanFactory beanFactory, String instanceMode, int instancePoolSize) throws DeploymentException {
+        this(pojoClazz, context, beanFactory, instanceMode, instancePoolSize, null);
+    }
+
+    /**
+     * @param codecRegistry 消息参数的解码器和{@link Session#send(Object)}的编码器，为null时只使用内置的编解码器
+     */
+    public PojoMethodMapping(Class<?> pojoClazz, ApplicationContext context, AbstractBeanFactory beanFactory, String instanceMode, int instancePoolSize, CodecRegistry codecRegistry) throws DeploymentException {
+        this(pojoClazz, context, beanFactory, instanceMode, instancePoolSize, codecRegistry, null);
+    }
+
+    /**
+     * @param messageTypeExtractor 按{@link OnMessage#type()}分发时读取消息类型，为null时读取JSON的"type"字段
+     */
+    public PojoMethodMapping(Class<?> pojoClazz, ApplicationContext context, AbstractBeanFactory beanFactory, String instanceMode, int instancePoolSize,
+                             CodecRegistry codecRegistry, MessageTypeExtractor messageTypeExtractor) throws DeploymentException {
+        this(pojoClazz, context, beanFactory, instanceMode, instancePoolSize, Integer.MAX_VALUE, codecRegistry, messageTypeExtractor, null, null);
+    }
+
+    /**
+     * @param maxContentLength   分片消息聚合后允许的最大长度
+     * @param requestIdExtractor 读取请求响应中的关联id，为null时读取JSON的"correlationId"字段
+     * @param beanName           端点bean的名称，singleton模式下按名称获取bean；为null时按类型查找，该类型只能有一个bean
+     */
+    public PojoMethodMapping(Class<?> pojoClazz, ApplicationContext context, AbstractBeanFactory beanFactory, String instanceMode, int instancePoolSize,
+                             int maxContentLength, CodecRegistry codecRegistry, MessageTypeExtractor messageTypeExtractor,
+                             MessageTypeExtractor requestIdExtractor, String beanName) throws DeploymentException {
         this.applicationContext = context;
         this.pojoClazz = pojoClazz;
         this.beanFactory = beanFactory;
+        this.codecRegistry = codecRegistry == null ? new CodecRegistry() : codecRegistry;
+        this.messageTypeExtractor = messageTypeExtractor == null ? new JsonTypeExtractor("type") : messageTypeExtractor;
+        this.requestIdExtractor = requestIdExtractor == null ? new JsonTypeExtractor("correlationId") : requestIdExtractor;
+        if (maxContentLength < 0) {
+            throw new DeploymentException("pojoMethodMapping.invalidMaxContentLength " + maxContentLength);
+        }
+        this.maxContentLength = maxContentLength;
+        if (INSTANCE_MODE_SINGLETON.equalsIgnoreCase(instanceMode)) {
+            this.singleton = true;
+            this.instancePool = null;
+            this.instanceConstructor = null;
+            this.singletonInstance = resolveSingletonInstance(pojoClazz, context, beanName);
+        } else if (INSTANCE_MODE_PROTOTYPE.equalsIgnoreCase(instanceMode) || INSTANCE_MODE_POOLED.equalsIgnoreCase(instanceMode)) {
+            this.singleton = false;
+            this.singletonInstance = null;
+            if (INSTANCE_MODE_POOLED.equalsIgnoreCase(instanceMode)) {
+                if (instancePoolSize <= 0) {
+                    throw new DeploymentException("pojoMethodMapping.invalidInstancePoolSize " + instancePoolSize);
+                }
+                this.instancePool = new ArrayBlockingQueue<>(instancePoolSize);
+            } else {
+                this.instancePool = null;
+            }
+            try {
+                this.instanceConstructor = pojoClazz.getDeclaredConstructor();
+                this.instanceConstructor.setAccessible(true);
+            } catch (NoSuchMethodException | RuntimeException e) {
+                throw new DeploymentException("pojoMethodMapping.noDefaultConstructor " + pojoClazz.getName(), e);
+            }
+        } else {
+            throw new DeploymentException("pojoMethodMapping.unknownInstanceMode " + instanceMode);
+        }
         Method handshake = null;
         Method open = null;
         Method close = null;
@@ -62,6 +181,9 @@ public class PojoMethodMapping {
         Method message = null;
         Method binary = null;
         Method event = null;
+        Method recycle = null;
+        //按类型分发的OnMessage方法
+        Map<String, Method> typedMessages = new LinkedHashMap<>();
         Method[] pojoClazzMethods = null;
         Class<?> currentClazz = pojoClazz;
         while (!currentClazz.equals(Object.class)) {
@@ -120,7 +242,18 @@ public class PojoMethodMapping {
                     }
                 } else if (method.getAnnotation(OnMessage.class) != null) {
                     checkPublic(method);
-                    if (message == null) {
+                    String type = method.getAnnotation(OnMessage.class).type();
+                    if (!type.isEmpty()) {
+                        Method typedMessage = typedMessages.get(type);
+                        if (typedMessage == null) {
+                            typedMessages.put(type, method);
+                        } else if (currentClazz == pojoClazz ||
+                                !isMethodOverride(typedMessage, method)) {
+                            // Duplicate type
+                            throw new DeploymentException(
+                                    "pojoMethodMapping.duplicateMessageType " + type);
+                        }
+                    } else if (message == null) {
                         message = method;
                     } else {
                         if (currentClazz == pojoClazz ||
@@ -154,6 +287,22 @@ public class PojoMethodMapping {
                                     "pojoMethodMapping.duplicateAnnotation OnEvent");
                         }
                     }
+                } else if (method.getAnnotation(OnRecycle.class) != null) {
+                    checkPublic(method);
+                    if (method.getParameterCount() != 0) {
+                        throw new DeploymentException(
+                                "pojoMethodMapping.onRecycleHasParameters " + method.getName());
+                    }
+                    if (recycle == null) {
+                        recycle = method;
+                    } else {
+                        if (currentClazz == pojoClazz ||
+                                !isMethodOverride(recycle, method)) {
+                            // Duplicate annotation
+                            throw new DeploymentException(
+                                    "pojoMethodMapping.duplicateAnnotation OnRecycle");
+                        }
+                    }
                 } else {
                     // Method not annotated
                 }
@@ -187,6 +336,13 @@ public class PojoMethodMapping {
                 message = null;
             }
         }
+        for (Iterator<Method> iterator = typedMessages.values().iterator(); iterator.hasNext(); ) {
+            Method typedMessage = iterator.next();
+            if (typedMessage.getDeclaringClass() != pojoClazz
+                    && isOverridenWithoutAnnotation(pojoClazzMethods, typedMessage, OnMessage.class)) {
+                iterator.remove();
+            }
+        }
         if (binary != null && binary.getDeclaringClass() != pojoClazz) {
             if (isOverridenWithoutAnnotation(pojoClazzMethods, binary, OnBinary.class)) {
                 binary = null;
@@ -197,6 +353,21 @@ public class PojoMethodMapping {
                 event = null;
             }
         }
+        if (recycle != null && recycle.getDeclaringClass() != pojoClazz) {
+            if (isOverridenWithoutAnnotation(pojoClazzMethods, recycle, OnRecycle.class)) {
+                recycle = null;
+            }
+        }
+        //池中的实例会被其他连接复用，必须由端点自己声明如何重置连接相关的状态
+        if (instancePool != null) {
+            if (recycle == null) {
+                throw new DeploymentException("pojoMethodMapping.pooledWithoutOnRecycle " + pojoClazz.getName());
+            }
+            recycle.setAccessible(true);
+            this.onRecycle = recycle;
+        } else {
+            this.onRecycle = null;
+        }
 
         this.beforeHandshake = handshake;
         this.onOpen = open;
@@ -219,6 +390,27 @@ public class PojoMethodMapping {
         onErrorArgResolvers = getResolvers(onErrorParameters);
         onBinaryArgResolvers = getResolvers(onBinaryParameters);
         onEventArgResolvers = getResolvers(onEventParameters);
+        beforeHandshakeInvoker = newInvoker(beforeHandshake, beforeHandshakeParameters, beforeHandshakeArgResolvers);
+        onOpenInvoker = newInvoker(onOpen, onOpenParameters, onOpenArgResolvers);
+        onCloseInvoker = newInvoker(onClose, onCloseParameters, onCloseArgResolvers);
+        onMessageInvoker = newInvoker(onMessage, onMessageParameters, onMessageArgResolvers);
+        onErrorInvoker = newInvoker(onError, onErrorParameters, onErrorArgResolvers);
+        onBinaryInvoker = newInvoker(onBinary, onBinaryParameters, onBinaryArgResolvers);
+        onEventInvoker = newInvoker(onEvent, onEventParameters, onEventArgResolvers);
+        streamingText = hasResolver(onMessageArgResolvers, MessageChunkMethodArgumentResolver.class);
+        streamingBinary = hasResolver(onBinaryArgResolvers, MessageChunkMethodArgumentResolver.class);
+        messageRouteInvokers = new MethodInvoker[typedMessages.size()];
+        int routeIndex = 0;
+        for (Map.Entry<String, Method> entry : typedMessages.entrySet()) {
+            MethodParameter[] parameters = getParameters(entry.getValue());
+            MethodArgumentResolver[] resolvers = getResolvers(parameters);
+            //读取类型需要完整的消息，不能逐帧接收
+            if (streamingText || hasResolver(resolvers, MessageChunkMethodArgumentResolver.class)) {
+                throw new DeploymentException("pojoMethodMapping.messageChunkNotRoutable " + entry.getKey());
+            }
+            messageRouteInvokers[routeIndex] = newInvoker(entry.getValue(), parameters, resolvers);
+            messageRoutes.put(entry.getKey(), routeIndex++);
+        }
     }
 
     private void checkPublic(Method m) throws DeploymentException {
@@ -244,27 +436,105 @@ public class PojoMethodMapping {
         return false;
     }
 
-    Object getEndpointInstance() throws NoSuchMethodException, IllegalAccessException, InvocationTargetException, InstantiationException {
-        Object implement = pojoClazz.getDeclaredConstructor().newInstance();
-        AutowiredAnnotationBeanPostProcessor postProcessor = applicationContext.getBean(AutowiredAnnotationBeanPostProcessor.class);
+    /**
+     * 获取一个端点实例
+     * <br>prototype：每个连接新建一个实例；singleton：所有连接共用Spring容器中的bean；pooled：优先复用close后回收的实例
+     */
+    Object getEndpointInstance() throws IllegalAccessException, InvocationTargetException, InstantiationException {
+        if (singleton) {
+            return singletonInstance;
+        }
+        if (instancePool != null) {
+            Object implement = instancePool.poll();
+            if (implement != null) {
+                return implement;
+            }
+        }
+        return newEndpointInstance();
+    }
+
+    /**
+     * 连接关闭后回收端点实例，只有pooled模式会保留：先调用{@link OnRecycle}方法重置状态，再放回池中，池满时直接丢弃
+     * <br>重置失败时抛出异常，该实例不会放回池中
+     */
+    void releaseEndpointInstance(Object implement) throws IllegalAccessException, InvocationTargetException {
+        if (instancePool != null) {
+            onRecycle.invoke(implement);
+            instancePool.offer(implement);
+        }
+    }
+
+    boolean isStreamingText() {
+        return streamingText;
+    }
+
+    boolean isStreamingBinary() {
+        return streamingBinary;
+    }
+
+    int getMaxContentLength() {
+        return maxContentLength;
+    }
+
+    CodecRegistry getCodecRegistry() {
+        return codecRegistry;
+    }
+
+    MessageTypeExtractor getRequestIdExtractor() {
+        return requestIdExtractor;
+    }
+
+    boolean isPooled() {
+        return instancePool != null;
+    }
+
+    private Object newEndpointInstance() throws IllegalAccessException, InvocationTargetException, InstantiationException {
+        Object implement = instanceConstructor.newInstance();
+        //按类型查找BeanPostProcessor需要遍历所有bean，只查一次；注入元数据由AutowiredAnnotationBeanPostProcessor按类缓存
+        AutowiredAnnotationBeanPostProcessor postProcessor = autowiredPostProcessor;
+        if (postProcessor == null) {
+            postProcessor = applicationContext.getBean(AutowiredAnnotationBeanPostProcessor.class);
+            autowiredPostProcessor = postProcessor;
+        }
         postProcessor.postProcessPropertyValues(null, null, implement, null);
         return implement;
     }
 
+    /**
+     * 端点类本身就是@Component，直接使用容器中的bean(可能是Cglib代理)
+     * <br>同一类型可能声明了多个bean，按端点的bean名称获取；JDK动态代理不是端点类的实例，回调方法无法调用，部署时直接失败
+     */
+    private static Object resolveSingletonInstance(Class<?> pojoClazz, ApplicationContext context, String beanName) throws DeploymentException {
+        String name = beanName;
+        if (name == null) {
+            String[] beanNames = context.getBeanNamesForType(pojoClazz);
+            if (beanNames.length != 1) {
+                throw new DeploymentException("pojoMethodMapping.singletonBeanNotUnique " + pojoClazz.getName() + " " + Arrays.toString(beanNames));
+            }
+            name = beanNames[0];
+        }
+        Object implement = context.getBean(name);
+        if (!pojoClazz.isInstance(implement)) {
+            throw new DeploymentException("pojoMethodMapping.singletonBeanTypeMismatch bean '" + name + "' is a "
+                    + implement.getClass().getName() + ", not a " + pojoClazz.getName());
+        }
+        return implement;
+    }
+
     Method getBeforeHandshake() {
         return beforeHandshake;
     }
 
-    Object[] getBeforeHandshakeArgs(Channel channel, FullHttpRequest req) throws Exception {
-        return getMethodArgumentValues(channel, req, beforeHandshakeParameters, beforeHandshakeArgResolvers);
+    MethodInvoker getBeforeHandshakeInvoker() {
+        return beforeHandshakeInvoker;
     }
 
     Method getOnOpen() {
         return onOpen;
     }
 
-    Object[] getOnOpenArgs(Channel channel, FullHttpRequest req) throws Exception {
-        return getMethodArgumentValues(channel, req, onOpenParameters, onOpenArgResolvers);
+    MethodInvoker getOnOpenInvoker() {
+        return onOpenInvoker;
     }
 
     MethodArgumentResolver[] getOnOpenArgResolvers() {
@@ -275,51 +545,89 @@ public class PojoMethodMapping {
         return onClose;
     }
 
-    Object[] getOnCloseArgs(Channel channel) throws Exception {
-        return getMethodArgumentValues(channel, null, onCloseParameters, onCloseArgResolvers);
+    MethodInvoker getOnCloseInvoker() {
+        return onCloseInvoker;
     }
 
     Method getOnError() {
         return onError;
     }
 
-    Object[] getOnErrorArgs(Channel channel, Throwable throwable) throws Exception {
-        return getMethodArgumentValues(channel, throwable, onErrorParameters, onErrorArgResolvers);
+    MethodInvoker getOnErrorInvoker() {
+        return onErrorInvoker;
     }
 
     Method getOnMessage() {
         return onMessage;
     }
 
-    Object[] getOnMessageArgs(Channel channel, TextWebSocketFrame textWebSocketFrame) throws Exception {
-        return getMethodArgumentValues(channel, textWebSocketFrame, onMessageParameters, onMessageArgResolvers);
+    MethodInvoker getOnMessageInvoker() {
+        return onMessageInvoker;
+    }
+
+    /**
+     * 按{@link OnMessage#type()}选择方法，只读取消息类型，不解码消息
+     *
+     * @param content 文本消息的内容
+     * @return {@link #getMessageRouteInvoker(int)}的下标；没有按类型声明的方法、无法识别类型或者该类型没有对应的方法时返回-1，
+     * 由没有type的OnMessage方法处理
+     */
+    int routeMessage(ByteBuf content) {
+        if (messageRoutes.isEmpty()) {
+            return -1;
+        }
+        String type = messageTypeExtractor.extract(content);
+        if (type == null) {
+            return -1;
+        }
+        Integer index = messageRoutes.get(type);
+        return index == null ? -1 : index;
+    }
+
+    MethodInvoker getMessageRouteInvoker(int index) {
+        return messageRouteInvokers[index];
     }
 
     Method getOnBinary() {
         return onBinary;
     }
 
-    Object[] getOnBinaryArgs(Channel channel, BinaryWebSocketFrame binaryWebSocketFrame) throws Exception {
-        return getMethodArgumentValues(channel, binaryWebSocketFrame, onBinaryParameters, onBinaryArgResolvers);
+    MethodInvoker getOnBinaryInvoker() {
+        return onBinaryInvoker;
     }
 
     Method getOnEvent() {
         return onEvent;
     }
 
-    Object[] getOnEventArgs(Channel channel, Object evt) throws Exception {
-        return getMethodArgumentValues(channel, evt, onEventParameters, onEventArgResolvers);
+    MethodInvoker getOnEventInvoker() {
+        return onEventInvoker;
     }
 
-    private Object[] getMethodArgumentValues(Channel channel, Object object, MethodParameter[] parameters, MethodArgumentResolver[] resolvers) throws Exception {
-        Object[] objects = new Object[parameters.length];
-        for (int i = 0; i < parameters.length; i++) {
-            MethodParameter parameter = parameters[i];
-            MethodArgumentResolver resolver = resolvers[i];
-            Object arg = resolver.resolveArgument(parameter, channel, object);
-            objects[i] = arg;
+    /**
+     * open时解析该会话所有回调方法的会话级参数
+     */
+    void resolveSessionArguments(EndpointContext context, Channel channel, FullHttpRequest req) throws Exception {
+        context.onCloseArgs = resolveSessionArguments(onCloseInvoker, channel, req);
+        context.onErrorArgs = resolveSessionArguments(onErrorInvoker, channel, req);
+        context.onMessageArgs = resolveSessionArguments(onMessageInvoker, channel, req);
+        context.onBinaryArgs = resolveSessionArguments(onBinaryInvoker, channel, req);
+        context.onEventArgs = resolveSessionArguments(onEventInvoker, channel, req);
+        if (messageRouteInvokers.length > 0) {
+            Object[][] routeArgs = new Object[messageRouteInvokers.length][];
+            for (int i = 0; i < messageRouteInvokers.length; i++) {
+                routeArgs[i] = messageRouteInvokers[i].resolveSessionArguments(channel, req);
+            }
+            context.onMessageRouteArgs = routeArgs;
         }
-        return objects;
+    }
+
+    private static Object[] resolveSessionArguments(MethodInvoker invoker, Channel channel, FullHttpRequest req) throws Exception {
+        return invoker == null ? null : invoker.resolveSessionArguments(channel, req);
+    }
+
+    private static MethodInvoker newInvoker(Method method, MethodParameter[] parameters, MethodArgumentResolver[] resolvers) throws DeploymentException {
+        return method == null ? null : new MethodInvoker(method, parameters, resolvers);
     }
 
     private MethodArgumentResolver[] getResolvers(MethodParameter[] parameters) throws DeploymentException {
@@ -340,6 +648,15 @@ public class PojoMethodMapping {
         return methodArgumentResolvers;
     }
 
+    private static boolean hasResolver(MethodArgumentResolver[] resolvers, Class<? extends MethodArgumentResolver> type) {
+        for (MethodArgumentResolver resolver : resolvers) {
+            if (type.isInstance(resolver)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private List<MethodArgumentResolver> getDefaultResolvers() {
         List<MethodArgumentResolver> resolvers = new ArrayList<>();
         resolvers.add(new SessionMethodArgumentResolver());
@@ -347,11 +664,17 @@ public class PojoMethodMapping {
         resolvers.add(new TextMethodArgumentResolver());
         resolvers.add(new ThrowableMethodArgumentResolver());
         resolvers.add(new ByteMethodArgumentResolver());
+        resolvers.add(new MessageChunkMethodArgumentResolver());
+        resolvers.add(new ByteBufMethodArgumentResolver());
+        resolvers.add(new ByteBufferMethodArgumentResolver());
+        resolvers.add(new CharSequenceMethodArgumentResolver());
         resolvers.add(new RequestParamMapMethodArgumentResolver());
         resolvers.add(new RequestParamMethodArgumentResolver(beanFactory));
         resolvers.add(new PathVariableMapMethodArgumentResolver());
         resolvers.add(new PathVariableMethodArgumentResolver(beanFactory));
         resolvers.add(new EventMethodArgumentResolver(beanFactory));
+        //放在最后，只处理其他resolver不支持的参数
+        resolvers.add(new CodecMethodArgumentResolver(codecRegistry));
         return resolvers;
     }
 
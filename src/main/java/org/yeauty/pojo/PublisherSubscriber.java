@@ -0,0 +1,177 @@
+package org.yeauty.pojo;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.EventLoop;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 订阅OnMessage、OnBinary返回的Publisher，把元素发送给会话
+ * <br>需求由channel的可写性驱动：channel可写时最多预取{@link #PREFETCH}个元素，不可写时停止请求，
+ * 重新可写后继续，慢客户端会把背压传递给上游
+ * <br>所有状态只在channel的EventLoop上访问；会话关闭时取消订阅
+ * <br>只有classpath中存在reactive-streams时才会加载本类
+ */
+final class PublisherSubscriber implements Subscriber<Object>, Runnable {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(PublisherSubscriber.class);
+
+    private static final int PREFETCH = 16;
+
+    private final PojoEndpointServer server;
+    private final Session session;
+    private final EventLoop loop;
+
+    /**
+     * 元素可以由内置的编码器编码，见{@link ReturnValueHandler#handle}
+     */
+    private final boolean payload;
+
+    private Subscription subscription;
+
+    /**
+     * 已请求但还没有收到的元素数
+     */
+    private int outstanding;
+
+    private boolean done;
+
+    private final ChannelFutureListener closeListener = future -> cancel();
+
+    private PublisherSubscriber(PojoEndpointServer server, Session session, boolean payload) {
+        this.server = server;
+        this.session = session;
+        this.loop = session.channel().eventLoop();
+        this.payload = payload;
+    }
+
+    static boolean isPublisher(Object value) {
+        return value instanceof Publisher;
+    }
+
+    @SuppressWarnings("unchecked")
+    static void subscribe(PojoEndpointServer server, Session session, Object publisher, boolean payload) {
+        ((Publisher<Object>) publisher).subscribe(new PublisherSubscriber(server, session, payload));
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        execute(() -> {
+            if (this.subscription != null) {
+                subscription.cancel();
+                return;
+            }
+            this.subscription = subscription;
+            Channel channel = session.channel();
+            if (!channel.isActive()) {
+                done = true;
+                subscription.cancel();
+                return;
+            }
+            channel.closeFuture().addListener(closeListener);
+            session.addWritabilityListener(this);
+            request();
+        }, subscription);
+    }
+
+    @Override
+    public void onNext(Object item) {
+        execute(() -> {
+            if (done) {
+                ReferenceCountUtil.release(item);
+                return;
+            }
+            outstanding--;
+            if (!ReturnValueHandler.send(session, item, payload)) {
+                onError(new IllegalArgumentException("Unsupported element type " + item.getClass().getName()));
+                return;
+            }
+            request();
+        }, null);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        execute(() -> {
+            if (done) {
+                return;
+            }
+            terminate();
+            if (subscription != null) {
+                subscription.cancel();
+            }
+            server.doOnError(session.channel(), throwable);
+        }, null);
+    }
+
+    @Override
+    public void onComplete() {
+        execute(() -> {
+            if (!done) {
+                terminate();
+            }
+        }, null);
+    }
+
+    /**
+     * channel重新可写
+     */
+    @Override
+    public void run() {
+        request();
+    }
+
+    /**
+     * 可写时把预取补足到{@link #PREFETCH}，剩余不到一半时才请求，避免每个元素都调用一次request
+     */
+    private void request() {
+        if (done || subscription == null || !session.channel().isWritable()) {
+            return;
+        }
+        if (outstanding <= PREFETCH / 2) {
+            int n = PREFETCH - outstanding;
+            outstanding = PREFETCH;
+            subscription.request(n);
+        }
+    }
+
+    private void cancel() {
+        execute(() -> {
+            if (!done) {
+                terminate();
+                subscription.cancel();
+            }
+        }, null);
+    }
+
+    private void terminate() {
+        done = true;
+        session.removeWritabilityListener(this);
+        session.channel().closeFuture().removeListener(closeListener);
+    }
+
+    /**
+     * @param toCancel EventLoop已关闭时需要取消的订阅
+     */
+    private void execute(Runnable task, Subscription toCancel) {
+        if (loop.inEventLoop()) {
+            task.run();
+            return;
+        }
+        try {
+            loop.execute(task);
+        } catch (RejectedExecutionException e) {
+            logger.debug("event loop is shut down", e);
+            if (toCancel != null) {
+                toCancel.cancel();
+            }
+        }
+    }
+}
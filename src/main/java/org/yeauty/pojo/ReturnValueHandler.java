@@ -0,0 +1,81 @@
+package org.yeauty.pojo;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+import org.springframework.util.ClassUtils;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 把OnMessage、OnBinary方法的返回值发送给会话
+ * <ul>
+ * <li>String发送文本帧，byte[]、{@link ByteBuffer}、{@link ByteBuf}发送二进制帧，{@link WebSocketFrame}原样发送，
+ * 其他对象由{@link org.yeauty.codec.Encoder}编码，见{@link Session#send(Object)}；
+ * 内置的编码器只用于标注了{@link org.yeauty.annotation.Payload}的方法</li>
+ * <li>{@link CompletionStage}完成后按结果的类型发送，异常交给OnError处理(在完成的线程上调用)</li>
+ * <li>Reactive Streams的Publisher按channel的可写性请求数据，每个元素按上面的规则发送，需要引入reactive-streams</li>
+ * </ul>
+ * 返回的ByteBuf和WebSocketFrame由框架负责释放，没有编码器的返回值被忽略
+ */
+final class ReturnValueHandler {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(ReturnValueHandler.class);
+
+    private static final boolean REACTIVE_STREAMS_PRESENT =
+            ClassUtils.isPresent("org.reactivestreams.Publisher", ReturnValueHandler.class.getClassLoader());
+
+    private ReturnValueHandler() {
+    }
+
+    /**
+     * @param value   方法的返回值，void方法为null
+     * @param payload 方法标注了{@link org.yeauty.annotation.Payload}，可以使用内置的编码器
+     */
+    static void handle(PojoEndpointServer server, Session session, Object value, boolean payload) {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof CompletionStage) {
+            ((CompletionStage<?>) value).whenComplete((result, throwable) -> {
+                if (throwable != null) {
+                    server.doOnError(session.channel(), unwrap(throwable));
+                } else {
+                    handle(server, session, result, payload);
+                }
+            });
+            return;
+        }
+        if (REACTIVE_STREAMS_PRESENT && PublisherSubscriber.isPublisher(value)) {
+            PublisherSubscriber.subscribe(server, session, value, payload);
+            return;
+        }
+        //兼容以前的版本，其他类型的返回值忽略
+        if (!send(session, value, payload) && logger.isDebugEnabled()) {
+            logger.debug("ignore return value of type " + value.getClass().getName());
+        }
+    }
+
+    /**
+     * 发送一个值，不支持的类型返回false
+     */
+    static boolean send(Session session, Object value, boolean payload) {
+        if (!session.canSend(value, payload)) {
+            ReferenceCountUtil.release(value);
+            return false;
+        }
+        session.send(value);
+        return true;
+    }
+
+    private static Throwable unwrap(Throwable throwable) {
+        if (throwable instanceof CompletionException && throwable.getCause() != null) {
+            return throwable.getCause();
+        }
+        return throwable;
+    }
+}
@@ -2,16 +2,26 @@ package org.yeauty.pojo;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.channel.*;
 import io.netty.channel.socket.DatagramChannel;
 import io.netty.channel.socket.DatagramPacket;
 import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
 import io.netty.util.AttributeKey;
+import org.yeauty.codec.CodecRegistry;
+import org.yeauty.codec.Encoder;
+import org.yeauty.support.MessageTypeExtractor;
 
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
 
 /**
  * @author Yeauty
@@ -21,8 +31,129 @@ public class Session {
 
     private final Channel channel;
 
+    private final TopicBroker topicBroker;
+
+    /**
+     * outboundOverflowPolicy不为none时在open时创建，否则第一次合并发送时创建
+     */
+    volatile OutboundQueue outboundQueue;
+
+    private final CodecRegistry codecRegistry;
+
+    /**
+     * 从响应中读取{@link #request(LongFunction, Class, long, TimeUnit)}的关联id
+     */
+    private final MessageTypeExtractor requestIdExtractor;
+
+    /**
+     * 第一次调用request时创建
+     */
+    private volatile PendingRequests pendingRequests;
+
+    /**
+     * 等待channel重新可写的回调(如返回值Publisher的订阅者)，只在channel的EventLoop上访问
+     */
+    private Set<Runnable> writabilityListeners;
+
     Session(Channel channel) {
+        this(channel, null, null, null, null);
+    }
+
+    Session(Channel channel, TopicBroker topicBroker, OutboundQueue outboundQueue, CodecRegistry codecRegistry, MessageTypeExtractor requestIdExtractor) {
         this.channel = channel;
+        this.topicBroker = topicBroker;
+        this.outboundQueue = outboundQueue;
+        this.codecRegistry = codecRegistry;
+        this.requestIdExtractor = requestIdExtractor;
+    }
+
+    /**
+     * send a request to the client and wait for its text response asynchronously, see {@link #request(LongFunction, Class, long, TimeUnit)}
+     * @param requestFactory builds the request message from the correlation id
+     * @param timeoutMillis
+     */
+    public CompletableFuture<String> request(LongFunction<?> requestFactory, long timeoutMillis) {
+        return request(requestFactory, String.class, timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * send a request to the client and wait for its response asynchronously.
+     * the request is built from a correlation id that is unique within this session and sent by {@link #send(Object)},
+     * the client answers with a JSON message whose {@code requestIdField} (default "correlationId") holds the same id.
+     * the response is consumed by the request and not passed to OnMessage/OnBinary
+     * @param requestFactory builds the request message from the correlation id, e.g. {@code id -> new Request(id, "ping")}
+     * @param responseType String, byte[] or a type supported by a {@link org.yeauty.codec.Decoder}
+     * @param timeout the future fails with {@link java.util.concurrent.TimeoutException} when no response arrives in time
+     * @param unit
+     * @return fails with {@link java.nio.channels.ClosedChannelException} when the session is closed
+     */
+    public <T> CompletableFuture<T> request(LongFunction<?> requestFactory, Class<T> responseType, long timeout, TimeUnit unit) {
+        PendingRequests requests = getPendingRequests();
+        PendingRequests.Request<T> request = requests.register(responseType, timeout, unit);
+        if (request.isDone()) {
+            return request;
+        }
+        ChannelFuture future;
+        try {
+            future = send(requestFactory.apply(request.id));
+        } catch (Throwable t) {
+            requests.fail(request.id, t);
+            return request;
+        }
+        future.addListener(f -> {
+            if (!f.isSuccess()) {
+                requests.fail(request.id, f.cause());
+            }
+        });
+        return request;
+    }
+
+    private PendingRequests getPendingRequests() {
+        PendingRequests requests = pendingRequests;
+        if (requests == null) {
+            if (requestIdExtractor == null) {
+                throw new IllegalStateException("request is not available");
+            }
+            synchronized (this) {
+                requests = pendingRequests;
+                if (requests == null) {
+                    requests = new PendingRequests(this, requestIdExtractor, codecRegistry);
+                    PendingRequests created = requests;
+                    channel.closeFuture().addListener(f -> created.failAll());
+                    pendingRequests = requests;
+                }
+            }
+        }
+        return requests;
+    }
+
+    /**
+     * 在OnMessage、OnBinary分发之前调用
+     *
+     * @return 消息是否是某个请求的响应
+     */
+    boolean completeRequest(WebSocketFrame frame) {
+        PendingRequests requests = pendingRequests;
+        return requests != null && requests.complete(frame);
+    }
+
+    /**
+     * subscribe a topic of {@link TopicBroker}, wildcards '*' and '#' are supported
+     * @param topic
+     */
+    public void subscribe(String topic) {
+        getTopicBroker().subscribe(this, topic);
+    }
+
+    public void unsubscribe(String topic) {
+        getTopicBroker().unsubscribe(this, topic);
+    }
+
+    private TopicBroker getTopicBroker() {
+        if (topicBroker == null) {
+            throw new IllegalStateException("TopicBroker is not available");
+        }
+        return topicBroker;
     }
 
     /**
@@ -34,40 +165,217 @@ public class Session {
     }
 
     public ChannelFuture sendText(String message) {
-        return channel.writeAndFlush(new TextWebSocketFrame(message));
+        return send(new TextWebSocketFrame(message), true);
     }
 
     public ChannelFuture sendText(ByteBuf byteBuf) {
-        return channel.writeAndFlush(new TextWebSocketFrame(byteBuf));
+        return send(new TextWebSocketFrame(byteBuf), true);
     }
 
     public ChannelFuture sendText(ByteBuffer byteBuffer) {
         ByteBuf buffer = channel.alloc().buffer(byteBuffer.remaining());
         buffer.writeBytes(byteBuffer);
-        return channel.writeAndFlush(new TextWebSocketFrame(buffer));
+        return send(new TextWebSocketFrame(buffer), true);
     }
 
     public ChannelFuture sendText(TextWebSocketFrame textWebSocketFrame) {
-        return channel.writeAndFlush(textWebSocketFrame);
+        return send(textWebSocketFrame, true);
     }
 
     public ChannelFuture sendBinary(byte[] bytes) {
         ByteBuf buffer = channel.alloc().buffer(bytes.length);
-        return channel.writeAndFlush(new BinaryWebSocketFrame(buffer.writeBytes(bytes)));
+        return send(new BinaryWebSocketFrame(buffer.writeBytes(bytes)), true);
     }
 
     public ChannelFuture sendBinary(ByteBuf byteBuf) {
-        return channel.writeAndFlush(new BinaryWebSocketFrame(byteBuf));
+        return send(new BinaryWebSocketFrame(byteBuf), true);
     }
 
     public ChannelFuture sendBinary(ByteBuffer byteBuffer) {
         ByteBuf buffer = channel.alloc().buffer(byteBuffer.remaining());
         buffer.writeBytes(byteBuffer);
-        return channel.writeAndFlush(new BinaryWebSocketFrame(buffer));
+        return send(new BinaryWebSocketFrame(buffer), true);
     }
 
     public ChannelFuture sendBinary(BinaryWebSocketFrame binaryWebSocketFrame) {
-        return channel.writeAndFlush(binaryWebSocketFrame);
+        return send(binaryWebSocketFrame, true);
+    }
+
+    /**
+     * send a String as text, byte[], ByteBuffer or ByteBuf as binary and a WebSocketFrame as is.
+     * other objects are encoded into a pooled buffer by the first {@link Encoder} of the {@link CodecRegistry} that supports them,
+     * e.g. JSON by Jackson or protobuf messages
+     * @param message
+     * @throws IllegalArgumentException if no Encoder supports the type of the message
+     */
+    public ChannelFuture send(Object message) {
+        if (message instanceof WebSocketFrame) {
+            return send((WebSocketFrame) message, true);
+        }
+        if (message instanceof String) {
+            return sendText((String) message);
+        }
+        if (message instanceof byte[]) {
+            return sendBinary((byte[]) message);
+        }
+        if (message instanceof ByteBuffer) {
+            return sendBinary((ByteBuffer) message);
+        }
+        if (message instanceof ByteBuf) {
+            return sendBinary((ByteBuf) message);
+        }
+        Encoder<Object> encoder = codecRegistry == null ? null : codecRegistry.findEncoder(message.getClass());
+        if (encoder == null) {
+            throw new IllegalArgumentException("No Encoder for " + message.getClass().getName());
+        }
+        ByteBuf buffer = channel.alloc().buffer();
+        try {
+            encoder.encode(message, buffer);
+        } catch (Throwable t) {
+            buffer.release();
+            return channel.newFailedFuture(t);
+        }
+        return send(encoder.isText() ? new TextWebSocketFrame(buffer) : new BinaryWebSocketFrame(buffer), true);
+    }
+
+    /**
+     * 方法的返回值是否可以通过{@link #send(Object)}发送
+     *
+     * @param includeDefaults 是否使用内置的编码器，方法标注了{@link org.yeauty.annotation.Payload}时为true
+     */
+    boolean canSend(Object message, boolean includeDefaults) {
+        return message instanceof WebSocketFrame || message instanceof String || message instanceof byte[]
+                || message instanceof ByteBuffer || message instanceof ByteBuf
+                || (codecRegistry != null && codecRegistry.findEncoder(message.getClass(), includeDefaults) != null);
+    }
+
+    /**
+     * write without flush, call {@link #flush()} after a batch of writes to send them with one syscall
+     * @param message
+     */
+    public ChannelFuture writeText(String message) {
+        return send(new TextWebSocketFrame(message), false);
+    }
+
+    public ChannelFuture writeText(ByteBuf byteBuf) {
+        return send(new TextWebSocketFrame(byteBuf), false);
+    }
+
+    public ChannelFuture writeText(ByteBuffer byteBuffer) {
+        ByteBuf buffer = channel.alloc().buffer(byteBuffer.remaining());
+        buffer.writeBytes(byteBuffer);
+        return send(new TextWebSocketFrame(buffer), false);
+    }
+
+    public ChannelFuture writeText(TextWebSocketFrame textWebSocketFrame) {
+        return send(textWebSocketFrame, false);
+    }
+
+    public ChannelFuture writeBinary(byte[] bytes) {
+        ByteBuf buffer = channel.alloc().buffer(bytes.length);
+        return send(new BinaryWebSocketFrame(buffer.writeBytes(bytes)), false);
+    }
+
+    public ChannelFuture writeBinary(ByteBuf byteBuf) {
+        return send(new BinaryWebSocketFrame(byteBuf), false);
+    }
+
+    public ChannelFuture writeBinary(ByteBuffer byteBuffer) {
+        ByteBuf buffer = channel.alloc().buffer(byteBuffer.remaining());
+        buffer.writeBytes(byteBuffer);
+        return send(new BinaryWebSocketFrame(buffer), false);
+    }
+
+    public ChannelFuture writeBinary(BinaryWebSocketFrame binaryWebSocketFrame) {
+        return send(binaryWebSocketFrame, false);
+    }
+
+    /**
+     * send the latest value of a key, when the channel is not writable only the newest pending message of each key is kept
+     * and sent once the channel becomes writable again, superseded messages are dropped
+     * @param key e.g. the symbol of a price stream
+     * @param message
+     */
+    public ChannelFuture conflateText(Object key, String message) {
+        return conflate(key, new TextWebSocketFrame(ByteBufUtil.writeUtf8(channel.alloc(), message)));
+    }
+
+    public ChannelFuture conflateBinary(Object key, byte[] bytes) {
+        ByteBuf buffer = channel.alloc().buffer(bytes.length);
+        return conflate(key, new BinaryWebSocketFrame(buffer.writeBytes(bytes)));
+    }
+
+    public ChannelFuture conflateBinary(Object key, ByteBuf byteBuf) {
+        return conflate(key, new BinaryWebSocketFrame(byteBuf));
+    }
+
+    public ChannelFuture conflate(Object key, WebSocketFrame frame) {
+        return getOutboundQueue().writeConflated(key, frame);
+    }
+
+    private OutboundQueue getOutboundQueue() {
+        OutboundQueue queue = outboundQueue;
+        if (queue == null) {
+            synchronized (this) {
+                queue = outboundQueue;
+                if (queue == null) {
+                    queue = OutboundQueue.create(channel, OutboundQueue.NONE, 0);
+                    outboundQueue = queue;
+                }
+            }
+        }
+        return queue;
+    }
+
+    ChannelFuture send(WebSocketFrame frame, boolean flush) {
+        OutboundQueue queue = outboundQueue;
+        if (queue != null) {
+            return queue.write(frame, flush);
+        }
+        return flush ? channel.writeAndFlush(frame) : channel.write(frame);
+    }
+
+    void addWritabilityListener(Runnable listener) {
+        if (writabilityListeners == null) {
+            writabilityListeners = new LinkedHashSet<>();
+        }
+        writabilityListeners.add(listener);
+    }
+
+    void removeWritabilityListener(Runnable listener) {
+        if (writabilityListeners != null) {
+            writabilityListeners.remove(listener);
+        }
+    }
+
+    /**
+     * channel可写性变化时调用，可以在任意线程调用，回调在EventLoop上执行
+     */
+    void fireWritable() {
+        EventLoop loop = channel.eventLoop();
+        if (!loop.inEventLoop()) {
+            loop.execute(this::fireWritable);
+            return;
+        }
+        if (writabilityListeners == null || writabilityListeners.isEmpty() || !channel.isWritable()) {
+            return;
+        }
+        //回调中可能移除自己
+        for (Runnable listener : writabilityListeners.toArray(new Runnable[0])) {
+            listener.run();
+        }
+    }
+
+    /**
+     * 广播使用，在channel的EventLoop上调用，不创建ChannelFuture
+     */
+    void sendShared(WebSocketFrame frame) {
+        OutboundQueue queue = outboundQueue;
+        if (queue != null) {
+            queue.write(frame, true, channel.voidPromise());
+        } else {
+            channel.writeAndFlush(frame, channel.voidPromise());
+        }
     }
 
     public <T> void setAttribute(String name, T value) {
@@ -216,6 +524,9 @@ public class Session {
         return channel.read();
     }
 
+    /**
+     * flush all messages written by writeText/writeBinary
+     */
     public Channel flush() {
         return channel.flush();
     }
@@ -0,0 +1,195 @@
+package org.yeauty.pojo;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.EventLoop;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.yeauty.pojo.PojoEndpointServer.SESSION_KEY;
+
+/**
+ * 一组会话，用于广播
+ * <br>会话按所在的EventLoop分组保存，广播时消息只编码一次，每个EventLoop只提交一个任务，
+ * 在该EventLoop上把同一份数据以{@link ByteBuf#retainedDuplicate()}写给它的所有会话
+ * <br>会话关闭后自动移出；线程安全，可以在任意线程添加、移除和广播
+ */
+public class SessionGroup implements Iterable<Session> {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(SessionGroup.class);
+
+    private final ConcurrentMap<EventLoop, Set<Session>> loopSessions = new ConcurrentHashMap<>();
+
+    private final ChannelFutureListener remover = future -> {
+        Session session = future.channel().attr(SESSION_KEY).get();
+        if (session != null) {
+            remove(session);
+        }
+    };
+
+    /**
+     * 添加会话，已关闭的会话会被立即移出
+     *
+     * @return 是否是新添加的
+     */
+    public boolean add(Session session) {
+        Channel channel = session.channel();
+        Set<Session> sessions = loopSessions.computeIfAbsent(channel.eventLoop(), loop -> ConcurrentHashMap.newKeySet());
+        if (!sessions.add(session)) {
+            return false;
+        }
+        channel.closeFuture().addListener(remover);
+        return true;
+    }
+
+    /**
+     * @return 会话是否在组中
+     */
+    public boolean remove(Session session) {
+        Channel channel = session.channel();
+        Set<Session> sessions = loopSessions.get(channel.eventLoop());
+        if (sessions == null || !sessions.remove(session)) {
+            return false;
+        }
+        channel.closeFuture().removeListener(remover);
+        return true;
+    }
+
+    public boolean contains(Session session) {
+        Set<Session> sessions = loopSessions.get(session.channel().eventLoop());
+        return sessions != null && sessions.contains(session);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Set<Session> sessions : loopSessions.values()) {
+            size += sessions.size();
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        for (Set<Session> sessions : loopSessions.values()) {
+            if (!sessions.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 弱一致的迭代器，不会抛出ConcurrentModificationException
+     */
+    @Override
+    public Iterator<Session> iterator() {
+        List<Iterator<Session>> iterators = new ArrayList<>(loopSessions.size());
+        for (Set<Session> sessions : loopSessions.values()) {
+            iterators.add(sessions.iterator());
+        }
+        return new Iterator<Session>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                while (index < iterators.size()) {
+                    if (iterators.get(index).hasNext()) {
+                        return true;
+                    }
+                    index++;
+                }
+                return false;
+            }
+
+            @Override
+            public Session next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return iterators.get(index).next();
+            }
+        };
+    }
+
+    public void broadcastText(String message) {
+        broadcast(new TextWebSocketFrame(ByteBufUtil.writeUtf8(ByteBufAllocator.DEFAULT, message)));
+    }
+
+    /**
+     * @param byteBuf 广播结束后释放，调用方不需要再release
+     */
+    public void broadcastText(ByteBuf byteBuf) {
+        broadcast(new TextWebSocketFrame(byteBuf));
+    }
+
+    /**
+     * @param bytes 复制一次后由所有会话共享，调用返回后可以修改或复用
+     */
+    public void broadcastBinary(byte[] bytes) {
+        ByteBuf buffer = ByteBufAllocator.DEFAULT.buffer(bytes.length);
+        broadcast(new BinaryWebSocketFrame(buffer.writeBytes(bytes)));
+    }
+
+    /**
+     * @param byteBuf 广播结束后释放，调用方不需要再release
+     */
+    public void broadcastBinary(ByteBuf byteBuf) {
+        broadcast(new BinaryWebSocketFrame(byteBuf));
+    }
+
+    /**
+     * 把同一个帧发送给组中所有会话
+     * <br>写入使用voidPromise，不为每个会话创建ChannelFuture，发送失败时由会话自己的异常处理(OnError)处理
+     *
+     * @param frame 广播结束后释放，调用方不需要再release
+     */
+    public void broadcast(WebSocketFrame frame) {
+        try {
+            for (Map.Entry<EventLoop, Set<Session>> entry : loopSessions.entrySet()) {
+                Set<Session> sessions = entry.getValue();
+                if (sessions.isEmpty()) {
+                    continue;
+                }
+                EventLoop loop = entry.getKey();
+                WebSocketFrame shared = frame.retainedDuplicate();
+                if (loop.inEventLoop()) {
+                    write(sessions, shared);
+                    continue;
+                }
+                try {
+                    loop.execute(() -> write(sessions, shared));
+                } catch (RejectedExecutionException e) {
+                    shared.release();
+                    logger.debug("broadcast rejected by event loop " + loop, e);
+                }
+            }
+        } finally {
+            frame.release();
+        }
+    }
+
+    /**
+     * 在会话所在的EventLoop上执行
+     */
+    private static void write(Set<Session> sessions, WebSocketFrame shared) {
+        try {
+            for (Session session : sessions) {
+                if (session.channel().isActive()) {
+                    session.sendShared(shared.retainedDuplicate());
+                }
+            }
+        } finally {
+            shared.release();
+        }
+    }
+}
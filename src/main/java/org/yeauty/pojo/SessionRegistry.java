@@ -0,0 +1,182 @@
+package org.yeauty.pojo;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelId;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 所有在线会话的索引，由{@link PojoEndpointServer}在open时登记、close时移除
+ * <br>可以按{@link ChannelId}、端点path以及自定义的键值(如用户id、租户)查找会话，
+ * 自定义索引通过{@link #index(Session, String, Object)}添加，会话关闭时自动移除
+ * <br>所有索引都是{@link ConcurrentHashMap}，查找不加锁，没有全局锁
+ */
+public class SessionRegistry {
+
+    private final ConcurrentMap<ChannelId, Entry> sessions = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, SessionGroup> pathSessions = new ConcurrentHashMap<>();
+
+    /**
+     * 键 -&gt; 值 -&gt; 会话
+     */
+    private final ConcurrentMap<String, ConcurrentMap<Object, SessionGroup>> keySessions = new ConcurrentHashMap<>();
+
+    /**
+     * 兜底：没有经过doOnClose(如open与close在不同线程上交错)时也能移除
+     */
+    private final ChannelFutureListener remover = future -> unregister(future.channel());
+
+    void register(Session session, String path) {
+        Channel channel = session.channel();
+        Entry entry = new Entry(session, path);
+        if (sessions.putIfAbsent(channel.id(), entry) != null) {
+            return;
+        }
+        pathSessions.computeIfAbsent(path, p -> new SessionGroup()).add(session);
+        channel.closeFuture().addListener(remover);
+    }
+
+    void unregister(Channel channel) {
+        Entry entry = sessions.remove(channel.id());
+        if (entry == null) {
+            return;
+        }
+        channel.closeFuture().removeListener(remover);
+        SessionGroup group = pathSessions.get(entry.path);
+        if (group != null) {
+            group.remove(entry.session);
+        }
+        for (Map.Entry<String, Object> key : entry.keys.entrySet()) {
+            removeFromIndex(key.getKey(), key.getValue(), entry.session);
+        }
+    }
+
+    /**
+     * 为会话添加自定义索引，同一个键重复添加时替换原来的值
+     *
+     * @param key   索引的名称，如"userId"
+     * @param value 索引的值，需要正确实现equals和hashCode
+     * @return 会话不在线时返回false
+     */
+    public boolean index(Session session, String key, Object value) {
+        Entry entry = sessions.get(session.id());
+        if (entry == null) {
+            return false;
+        }
+        Object previous = entry.keys.put(key, value);
+        if (previous != null && !previous.equals(value)) {
+            removeFromIndex(key, previous, session);
+        }
+        keySessions.computeIfAbsent(key, k -> new ConcurrentHashMap<>())
+                .compute(value, (v, group) -> {
+                    if (group == null) {
+                        group = new SessionGroup();
+                    }
+                    group.add(session);
+                    return group;
+                });
+        //与unregister并发时，会话可能已经被移除
+        if (!sessions.containsKey(session.id())) {
+            removeFromIndex(key, value, session);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 移除会话的自定义索引
+     */
+    public void unindex(Session session, String key) {
+        Entry entry = sessions.get(session.id());
+        if (entry == null) {
+            return;
+        }
+        Object value = entry.keys.remove(key);
+        if (value != null) {
+            removeFromIndex(key, value, session);
+        }
+    }
+
+    private void removeFromIndex(String key, Object value, Session session) {
+        ConcurrentMap<Object, SessionGroup> index = keySessions.get(key);
+        if (index == null) {
+            return;
+        }
+        //在compute中移除，保证空组的删除与并发的添加互斥
+        index.computeIfPresent(value, (v, group) -> {
+            group.remove(session);
+            return group.isEmpty() ? null : group;
+        });
+    }
+
+    public Session getSession(ChannelId id) {
+        Entry entry = sessions.get(id);
+        return entry == null ? null : entry.session;
+    }
+
+    /**
+     * @return 所有在线会话的只读视图
+     */
+    public Collection<Session> getSessions() {
+        return new SessionsView();
+    }
+
+    /**
+     * @return 连接到该path的会话，可以直接用于广播；没有时返回null
+     */
+    public SessionGroup getSessions(String path) {
+        return pathSessions.get(path);
+    }
+
+    /**
+     * @return 自定义索引为该值的会话；没有时返回null
+     */
+    public SessionGroup getSessions(String key, Object value) {
+        ConcurrentMap<Object, SessionGroup> index = keySessions.get(key);
+        return index == null ? null : index.get(value);
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    private static final class Entry {
+
+        private final Session session;
+        private final String path;
+        private final ConcurrentMap<String, Object> keys = new ConcurrentHashMap<>(4);
+
+        Entry(Session session, String path) {
+            this.session = session;
+            this.path = path;
+        }
+    }
+
+    private final class SessionsView extends AbstractCollection<Session> {
+
+        @Override
+        public Iterator<Session> iterator() {
+            Iterator<Entry> iterator = sessions.values().iterator();
+            return new Iterator<Session>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Session next() {
+                    return iterator.next().session;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return sessions.size();
+        }
+    }
+}
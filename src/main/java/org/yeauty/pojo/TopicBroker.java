@@ -0,0 +1,317 @@
+package org.yeauty.pojo;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.EventLoop;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 服务端的主题订阅与发布
+ * <br>主题以'.'分隔层级，订阅时可以使用通配符：'*'匹配一个层级，'#'匹配零个或多个层级，如"ticker.*"、"ticker.#"
+ * <br>订阅索引按EventLoop分片，每个分片只在自己的EventLoop上读写，不需要加锁；
+ * 发布时消息只编码一次，每个分片提交一个任务，在本地匹配订阅者并写入{@link io.netty.buffer.ByteBuf#retainedDuplicate()}
+ * <br>会话关闭后自动取消它的所有订阅
+ */
+public class TopicBroker {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(TopicBroker.class);
+
+    private static final String SINGLE_LEVEL_WILDCARD = "*";
+    private static final String MULTI_LEVEL_WILDCARD = "#";
+
+    private static final Session[] NO_SESSIONS = new Session[0];
+
+    private final ConcurrentMap<EventLoop, Shard> shards = new ConcurrentHashMap<>();
+
+    /**
+     * 订阅主题，可以在任意线程调用
+     */
+    public void subscribe(Session session, String topic) {
+        String[] levels = split(topic);
+        for (int i = 0; i < levels.length - 1; i++) {
+            if (MULTI_LEVEL_WILDCARD.equals(levels[i])) {
+                throw new IllegalArgumentException("'#' is only allowed as the last level: " + topic);
+            }
+        }
+        Shard shard = shardOf(session);
+        execute(shard, () -> shard.subscribe(session, topic, levels));
+    }
+
+    /**
+     * 取消订阅，topic需要与订阅时相同
+     */
+    public void unsubscribe(Session session, String topic) {
+        String[] levels = split(topic);
+        Shard shard = shardOf(session);
+        execute(shard, () -> shard.unsubscribe(session, topic, levels));
+    }
+
+    /**
+     * 取消会话的所有订阅
+     */
+    public void unsubscribeAll(Session session) {
+        Shard shard = shards.get(session.channel().eventLoop());
+        if (shard != null) {
+            execute(shard, () -> shard.unsubscribeAll(session));
+        }
+    }
+
+    public void publish(String topic, String message) {
+        publish(topic, new TextWebSocketFrame(ByteBufUtil.writeUtf8(ByteBufAllocator.DEFAULT, message)));
+    }
+
+    /**
+     * @param bytes 复制一次后由所有订阅者共享，调用返回后可以修改或复用
+     */
+    public void publish(String topic, byte[] bytes) {
+        ByteBuf buffer = ByteBufAllocator.DEFAULT.buffer(bytes.length);
+        publish(topic, new BinaryWebSocketFrame(buffer.writeBytes(bytes)));
+    }
+
+    /**
+     * 把帧发送给所有匹配的订阅者
+     *
+     * @param topic 不能包含通配符
+     * @param frame 发布结束后释放，调用方不需要再release
+     */
+    public void publish(String topic, WebSocketFrame frame) {
+        try {
+            String[] levels = split(topic);
+            for (String level : levels) {
+                if (SINGLE_LEVEL_WILDCARD.equals(level) || MULTI_LEVEL_WILDCARD.equals(level)) {
+                    throw new IllegalArgumentException("wildcards are not allowed in published topic: " + topic);
+                }
+            }
+            for (Shard shard : shards.values()) {
+                if (shard.subscriptionCount == 0) {
+                    continue;
+                }
+                WebSocketFrame shared = frame.retainedDuplicate();
+                if (shard.loop.inEventLoop()) {
+                    shard.publish(levels, shared);
+                    continue;
+                }
+                try {
+                    shard.loop.execute(() -> shard.publish(levels, shared));
+                } catch (RejectedExecutionException e) {
+                    shared.release();
+                    logger.debug("publish rejected by event loop " + shard.loop, e);
+                }
+            }
+        } finally {
+            frame.release();
+        }
+    }
+
+    private Shard shardOf(Session session) {
+        return shards.computeIfAbsent(session.channel().eventLoop(), Shard::new);
+    }
+
+    private static void execute(Shard shard, Runnable task) {
+        if (shard.loop.inEventLoop()) {
+            task.run();
+        } else {
+            shard.loop.execute(task);
+        }
+    }
+
+    private static String[] split(String topic) {
+        if (topic == null || topic.isEmpty()) {
+            throw new IllegalArgumentException("topic must not be empty");
+        }
+        return topic.split("\\.", -1);
+    }
+
+    private static final class Node {
+
+        private final Map<String, Node> children = new HashMap<>();
+        private Node singleLevel;
+        private Node multiLevel;
+        private final Set<Session> subscribers = new LinkedHashSet<>();
+
+        Node child(String level) {
+            if (SINGLE_LEVEL_WILDCARD.equals(level)) {
+                if (singleLevel == null) {
+                    singleLevel = new Node();
+                }
+                return singleLevel;
+            }
+            if (MULTI_LEVEL_WILDCARD.equals(level)) {
+                if (multiLevel == null) {
+                    multiLevel = new Node();
+                }
+                return multiLevel;
+            }
+            return children.computeIfAbsent(level, key -> new Node());
+        }
+
+        Node get(String level) {
+            if (SINGLE_LEVEL_WILDCARD.equals(level)) {
+                return singleLevel;
+            }
+            if (MULTI_LEVEL_WILDCARD.equals(level)) {
+                return multiLevel;
+            }
+            return children.get(level);
+        }
+
+        void removeChild(String level) {
+            if (SINGLE_LEVEL_WILDCARD.equals(level)) {
+                singleLevel = null;
+            } else if (MULTI_LEVEL_WILDCARD.equals(level)) {
+                multiLevel = null;
+            } else {
+                children.remove(level);
+            }
+        }
+
+        boolean isEmpty() {
+            return subscribers.isEmpty() && children.isEmpty() && singleLevel == null && multiLevel == null;
+        }
+    }
+
+    /**
+     * 一个EventLoop上的订阅索引，所有方法都只在该EventLoop上执行
+     */
+    private final class Shard {
+
+        private final EventLoop loop;
+        private final Node root = new Node();
+        private final Map<Session, Set<String>> sessionTopics = new HashMap<>();
+
+        /**
+         * 发布线程读取，用来跳过没有订阅的分片
+         */
+        private volatile int subscriptionCount;
+
+        /**
+         * 匹配时去重，同一个会话通过多个通配符订阅匹配时只发送一次；发送前复制到数组并清空
+         */
+        private final Set<Session> matched = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        private final ChannelFutureListener closeListener = future -> {
+            Session session = future.channel().attr(PojoEndpointServer.SESSION_KEY).get();
+            if (session != null) {
+                unsubscribeAll(session);
+            }
+        };
+
+        Shard(EventLoop loop) {
+            this.loop = loop;
+        }
+
+        void subscribe(Session session, String topic, String[] levels) {
+            Channel channel = session.channel();
+            if (!channel.isActive()) {
+                return;
+            }
+            Set<String> topics = sessionTopics.get(session);
+            if (topics == null) {
+                topics = new HashSet<>();
+                sessionTopics.put(session, topics);
+                channel.closeFuture().addListener(closeListener);
+            }
+            if (!topics.add(topic)) {
+                return;
+            }
+            Node node = root;
+            for (String level : levels) {
+                node = node.child(level);
+            }
+            node.subscribers.add(session);
+            subscriptionCount++;
+        }
+
+        void unsubscribe(Session session, String topic, String[] levels) {
+            Set<String> topics = sessionTopics.get(session);
+            if (topics == null || !topics.remove(topic)) {
+                return;
+            }
+            if (topics.isEmpty()) {
+                sessionTopics.remove(session);
+                session.channel().closeFuture().removeListener(closeListener);
+            }
+            remove(root, levels, 0, session);
+            subscriptionCount--;
+        }
+
+        void unsubscribeAll(Session session) {
+            Set<String> topics = sessionTopics.remove(session);
+            if (topics == null) {
+                return;
+            }
+            session.channel().closeFuture().removeListener(closeListener);
+            for (String topic : topics) {
+                remove(root, split(topic), 0, session);
+                subscriptionCount--;
+            }
+        }
+
+        /**
+         * 移除订阅并删除空节点
+         *
+         * @return 节点是否已经为空
+         */
+        private boolean remove(Node node, String[] levels, int index, Session session) {
+            if (index == levels.length) {
+                node.subscribers.remove(session);
+                return node.isEmpty();
+            }
+            Node child = node.get(levels[index]);
+            if (child != null && remove(child, levels, index + 1, session)) {
+                node.removeChild(levels[index]);
+            }
+            return node.isEmpty();
+        }
+
+        void publish(String[] levels, WebSocketFrame shared) {
+            try {
+                Session[] sessions;
+                try {
+                    match(root, levels, 0);
+                    sessions = matched.isEmpty() ? NO_SESSIONS : matched.toArray(new Session[matched.size()]);
+                } finally {
+                    matched.clear();
+                }
+                //发送可能同步触发回调(如写失败时的OnError)，回调中重入的publish、subscribe不会影响这里的遍历
+                for (Session session : sessions) {
+                    if (session.channel().isActive()) {
+                        session.sendShared(shared.retainedDuplicate());
+                    }
+                }
+            } finally {
+                shared.release();
+            }
+        }
+
+        private void match(Node node, String[] levels, int index) {
+            if (node.multiLevel != null) {
+                //'#'匹配剩余的任意层级，包括零个
+                matched.addAll(node.multiLevel.subscribers);
+            }
+            if (index == levels.length) {
+                matched.addAll(node.subscribers);
+                return;
+            }
+            Node child = node.children.get(levels[index]);
+            if (child != null) {
+                match(child, levels, index + 1);
+            }
+            if (node.singleLevel != null) {
+                match(node.singleLevel, levels, index + 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.yeauty.standard;
+
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+import org.springframework.util.StringUtils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 根据{@link org.yeauty.annotation.ServerEndpoint#eventExecutorMode()}创建eventExecutorGroup
+ */
+final class EventExecutorSupport {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(EventExecutorSupport.class);
+
+    static final String MODE_DEFAULT = "default";
+    static final String MODE_VIRTUAL = "virtual";
+    static final String MODE_FORK_JOIN = "forkjoin";
+
+    private static final int DEFAULT_EVENT_EXECUTOR_GROUP_THREADS = 16;
+
+    /**
+     * JDK 21+的Executors.newVirtualThreadPerTaskExecutor()，编译目标是1.8，通过反射查找，不可用时为null
+     */
+    private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = findNewVirtualThreadExecutor();
+
+    private EventExecutorSupport() {
+    }
+
+    /**
+     * 校验并规范化模式，虚拟线程不可用时回退到default
+     *
+     * @param mode default、virtual或forkjoin
+     * @return 实际使用的模式
+     */
+    static String resolveMode(String mode) {
+        if (StringUtils.isEmpty(mode) || MODE_DEFAULT.equalsIgnoreCase(mode)) {
+            return MODE_DEFAULT;
+        }
+        if (MODE_VIRTUAL.equalsIgnoreCase(mode)) {
+            if (NEW_VIRTUAL_THREAD_EXECUTOR != null) {
+                return MODE_VIRTUAL;
+            }
+            logger.warn("virtual threads are not available on this JDK, fall back to the default eventExecutorGroup");
+            return MODE_DEFAULT;
+        }
+        if (MODE_FORK_JOIN.equalsIgnoreCase(mode)) {
+            return MODE_FORK_JOIN;
+        }
+        throw new IllegalArgumentException("Unknown eventExecutorMode '" + mode + "', expected one of default, virtual, forkjoin");
+    }
+
+    /**
+     * @param mode    {@link #resolveMode(String)}的结果
+     * @param threads default模式的线程数或forkjoin模式的并行度，0表示默认的16
+     */
+    static EventExecutorGroup newEventExecutorGroup(String mode, int threads) {
+        if (MODE_FORK_JOIN.equals(mode)) {
+            //asyncMode：邮箱任务从不join，按FIFO调度，空闲线程从繁忙线程的队列中窃取邮箱
+            ForkJoinPool pool = new ForkJoinPool(threads == 0 ? DEFAULT_EVENT_EXECUTOR_GROUP_THREADS : threads,
+                    ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+            return new SessionMailboxExecutorGroup(pool);
+        }
+        if (MODE_VIRTUAL.equals(mode)) {
+            ExecutorService executor = newVirtualThreadExecutor();
+            if (executor != null) {
+                return new SessionMailboxExecutorGroup(executor);
+            }
+            logger.warn("failed to create a virtual thread executor, fall back to the default eventExecutorGroup");
+        }
+        return new DefaultEventExecutorGroup(threads == 0 ? DEFAULT_EVENT_EXECUTOR_GROUP_THREADS : threads);
+    }
+
+    private static Method findNewVirtualThreadExecutor() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException | RuntimeException e) {
+            logger.debug("virtual threads are not available", e);
+            return null;
+        }
+    }
+
+    /**
+     * @return 不可用时(如JDK 19、20未开启预览特性)返回null
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        if (NEW_VIRTUAL_THREAD_EXECUTOR == null) {
+            return null;
+        }
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.debug("virtual threads are not available", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.yeauty.standard;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.NettyRuntime;
+import io.netty.util.concurrent.EventExecutorGroup;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 所有{@link WebsocketServer}共享的bossGroup、workerGroup和eventExecutorGroup
+ * <br>多个端口不再各自创建线程组，避免线程数随端口数成倍增长
+ * <br>线程数取所有共享端点配置中的最大值，端点可以通过{@link org.yeauty.annotation.ServerEndpoint#shareEventLoopGroup()}关闭共享
+ */
+public class EventLoopGroupRegistry implements DisposableBean {
+
+    private static final int DEFAULT_EVENT_EXECUTOR_GROUP_THREADS = 16;
+
+    private int bossLoopGroupThreads;
+    private int workerLoopGroupThreads;
+    private int eventExecutorGroupThreads;
+
+    private EventLoopGroup nioBoss;
+    private EventLoopGroup nioWorker;
+    private EventLoopGroup epollBoss;
+    private EventLoopGroup epollWorker;
+
+    /**
+     * eventExecutorMode -&gt; eventExecutorGroup，同一模式的端点共享一个group
+     */
+    private final Map<String, EventExecutorGroup> eventExecutorGroups = new HashMap<>();
+
+    /**
+     * 登记一个使用共享线程组的端点，线程组创建前调用才会影响线程数
+     *
+     * @param config 端点配置
+     */
+    public synchronized void register(ServerEndpointConfig config) {
+        bossLoopGroupThreads = Math.max(bossLoopGroupThreads, eventLoopThreads(config.getBossLoopGroupThreads()));
+        workerLoopGroupThreads = Math.max(workerLoopGroupThreads, eventLoopThreads(config.getWorkerLoopGroupThreads()));
+        if (config.isUseEventExecutorGroup()) {
+            int threads = config.getEventExecutorGroupThreads() == 0 ? DEFAULT_EVENT_EXECUTOR_GROUP_THREADS : config.getEventExecutorGroupThreads();
+            eventExecutorGroupThreads = Math.max(eventExecutorGroupThreads, threads);
+        }
+    }
+
+    public synchronized EventLoopGroup getBossGroup(boolean epoll) {
+        if (epoll) {
+            if (epollBoss == null) {
+                epollBoss = TransportSupport.newEventLoopGroup(true, bossLoopGroupThreads);
+            }
+            return epollBoss;
+        }
+        if (nioBoss == null) {
+            nioBoss = TransportSupport.newEventLoopGroup(false, bossLoopGroupThreads);
+        }
+        return nioBoss;
+    }
+
+    public synchronized EventLoopGroup getWorkerGroup(boolean epoll) {
+        if (epoll) {
+            if (epollWorker == null) {
+                epollWorker = TransportSupport.newEventLoopGroup(true, workerLoopGroupThreads);
+            }
+            return epollWorker;
+        }
+        if (nioWorker == null) {
+            nioWorker = TransportSupport.newEventLoopGroup(false, workerLoopGroupThreads);
+        }
+        return nioWorker;
+    }
+
+    /**
+     * @param mode {@link EventExecutorSupport#resolveMode(String)}的结果
+     */
+    public synchronized EventExecutorGroup getEventExecutorGroup(String mode) {
+        return eventExecutorGroups.computeIfAbsent(mode, m -> EventExecutorSupport.newEventExecutorGroup(m, eventExecutorGroupThreads));
+    }
+
+    /**
+     * @return 已创建的共享eventExecutorGroup，virtual和forkjoin模式为{@link SessionMailboxExecutorGroup}，可以读取队列深度等指标
+     */
+    public synchronized Map<String, EventExecutorGroup> getEventExecutorGroups() {
+        return Collections.unmodifiableMap(new HashMap<>(eventExecutorGroups));
+    }
+
+    @Override
+    public synchronized void destroy() {
+        shutdown(nioBoss);
+        shutdown(epollBoss);
+        shutdown(nioWorker);
+        shutdown(epollWorker);
+        for (EventExecutorGroup eventExecutorGroup : eventExecutorGroups.values()) {
+            shutdown(eventExecutorGroup);
+        }
+        eventExecutorGroups.clear();
+    }
+
+    private static void shutdown(EventExecutorGroup group) {
+        if (group != null) {
+            group.shutdownGracefully().syncUninterruptibly();
+        }
+    }
+
+    /**
+     * 0表示使用netty的默认线程数
+     */
+    private static int eventLoopThreads(int threads) {
+        return threads == 0 ? NettyRuntime.availableProcessors() * 2 : threads;
+    }
+}
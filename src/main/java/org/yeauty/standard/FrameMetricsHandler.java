@@ -0,0 +1,40 @@
+package org.yeauty.standard;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import org.yeauty.metrics.EndpointMetrics;
+import org.yeauty.metrics.FrameType;
+
+/**
+ * 统计收发的帧数和字节数，位于压缩handler之后、聚合handler之前：
+ * 读到的是解压后的每一个分片，写出的是压缩前的帧
+ * <br>只在EventLoop上执行，只有配置了指标时才添加到pipeline
+ */
+class FrameMetricsHandler extends ChannelDuplexHandler {
+
+    private final EndpointMetrics metrics;
+
+    FrameMetricsHandler(EndpointMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof WebSocketFrame) {
+            WebSocketFrame frame = (WebSocketFrame) msg;
+            metrics.frameReceived(FrameType.of(frame), frame.content().readableBytes());
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof WebSocketFrame) {
+            WebSocketFrame frame = (WebSocketFrame) msg;
+            metrics.frameSent(FrameType.of(frame), frame.content().readableBytes());
+        }
+        ctx.write(msg, promise);
+    }
+}
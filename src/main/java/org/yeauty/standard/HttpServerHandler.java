@@ -7,21 +7,20 @@ import io.netty.channel.*;
 import io.netty.handler.codec.http.*;
 import io.netty.handler.codec.http.cors.CorsHandler;
 import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
-import io.netty.handler.codec.http.websocketx.WebSocketFrameAggregator;
 import io.netty.handler.codec.http.websocketx.WebSocketServerHandshaker;
 import io.netty.handler.codec.http.websocketx.WebSocketServerHandshakerFactory;
 import io.netty.handler.codec.http.websocketx.extensions.compression.WebSocketServerCompressionHandler;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import io.netty.handler.timeout.IdleStateHandler;
 import io.netty.util.AttributeKey;
 import io.netty.util.CharsetUtil;
 import io.netty.util.concurrent.EventExecutorGroup;
 import org.springframework.beans.TypeMismatchException;
 import org.springframework.util.StringUtils;
+import org.yeauty.metrics.EndpointMetrics;
 import org.yeauty.pojo.PojoEndpointServer;
-import org.yeauty.support.WsPathMatcher;
 
 import java.io.InputStream;
-import java.util.Set;
 
 import static io.netty.handler.codec.http.HttpHeaderNames.*;
 import static io.netty.handler.codec.http.HttpMethod.GET;
@@ -179,14 +178,7 @@ class HttpServerHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
         Channel channel = ctx.channel();
 
         //path match
-        String pattern = null;
-        Set<WsPathMatcher> pathMatcherSet = pojoEndpointServer.getPathMatcherSet();
-        for (WsPathMatcher pathMatcher : pathMatcherSet) {
-            if (pathMatcher.matchAndExtract(decoder, channel)) {
-                pattern = pathMatcher.getPattern();
-                break;
-            }
-        }
+        String pattern = pojoEndpointServer.getPathRouter().matchAndExtract(decoder, channel);
 
         if (pattern == null) {
             if (notFoundByteBuf != null) {
@@ -209,10 +201,13 @@ class HttpServerHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
         }
 
         String subprotocols = null;
+        EndpointMetrics metrics = pojoEndpointServer.getEndpointMetrics(pattern);
+        long handshakeStart = System.nanoTime();
 
         if (pojoEndpointServer.hasBeforeHandshake(channel, pattern)) {
             pojoEndpointServer.doBeforeHandshake(channel, req, pattern);
             if (!channel.isActive()) {
+                metrics.handshake(System.nanoTime() - handshakeStart, false);
                 return;
             }
 
@@ -227,16 +222,24 @@ class HttpServerHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
         WebSocketServerHandshaker handshaker = wsFactory.newHandshaker(req);
         if (handshaker == null) {
             WebSocketServerHandshakerFactory.sendUnsupportedVersionResponse(channel);
+            metrics.handshake(System.nanoTime() - handshakeStart, false);
         } else {
             ChannelPipeline pipeline = ctx.pipeline();
             pipeline.remove(ctx.name());
+            if (config.isUseFlushConsolidationHandler()) {
+                //位于WebSocket编码器之后，合并会话的flush
+                pipeline.addLast(new FlushConsolidationHandler(config.getFlushConsolidationExplicitFlushAfterFlushes(), config.isFlushConsolidationWhenNoReadInProgress()));
+            }
             if (config.getReaderIdleTimeSeconds() != 0 || config.getWriterIdleTimeSeconds() != 0 || config.getAllIdleTimeSeconds() != 0) {
                 pipeline.addLast(new IdleStateHandler(config.getReaderIdleTimeSeconds(), config.getWriterIdleTimeSeconds(), config.getAllIdleTimeSeconds()));
             }
             if (config.isUseCompressionHandler()) {
                 pipeline.addLast(new WebSocketServerCompressionHandler());
             }
-            pipeline.addLast(new WebSocketFrameAggregator(Integer.MAX_VALUE));
+            if (metrics != EndpointMetrics.NOOP) {
+                pipeline.addLast(new FrameMetricsHandler(metrics));
+            }
+            pipeline.addLast(new StreamingWebSocketFrameAggregator(pojoEndpointServer.getMaxContentLength(pattern), pojoEndpointServer.isStreamingText(pattern), pojoEndpointServer.isStreamingBinary(pattern)));
             if (config.isUseEventExecutorGroup()) {
                 pipeline.addLast(eventExecutorGroup, new WebSocketServerHandler(pojoEndpointServer));
             } else {
@@ -244,6 +247,7 @@ class HttpServerHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
             }
             String finalPattern = pattern;
             handshaker.handshake(channel, req).addListener(future -> {
+                metrics.handshake(System.nanoTime() - handshakeStart, future.isSuccess());
                 if (future.isSuccess()) {
                     if (isCors) {
                         pipeline.remove(CorsHandler.class);
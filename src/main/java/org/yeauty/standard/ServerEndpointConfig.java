@@ -17,8 +17,14 @@ public class ServerEndpointConfig {
     private final int BOSS_LOOP_GROUP_THREADS;
     private final int WORKER_LOOP_GROUP_THREADS;
     private final boolean USE_COMPRESSION_HANDLER;
+    private final boolean USE_FLUSH_CONSOLIDATION_HANDLER;
+    private final int FLUSH_CONSOLIDATION_EXPLICIT_FLUSH_AFTER_FLUSHES;
+    private final boolean FLUSH_CONSOLIDATION_WHEN_NO_READ_IN_PROGRESS;
+    private final boolean SHARE_EVENT_LOOP_GROUP;
+    private final String TRANSPORT;
     private final int CONNECT_TIMEOUT_MILLIS;
     private final int SO_BACKLOG;
+    private final boolean SO_REUSEPORT;
     private final int WRITE_SPIN_COUNT;
     private final int WRITE_BUFFER_HIGH_WATER_MARK;
     private final int WRITE_BUFFER_LOW_WATER_MARK;
@@ -28,12 +34,18 @@ public class ServerEndpointConfig {
     private final boolean SO_KEEPALIVE;
     private final int SO_LINGER;
     private final boolean ALLOW_HALF_CLOSURE;
+    private final boolean TCP_QUICKACK;
+    private final boolean TCP_CORK;
+    private final boolean EPOLL_EDGE_TRIGGERED;
     private final int READER_IDLE_TIME_SECONDS;
     private final int WRITER_IDLE_TIME_SECONDS;
     private final int ALL_IDLE_TIME_SECONDS;
     private final int MAX_FRAME_PAYLOAD_LENGTH;
+    private final String OUTBOUND_OVERFLOW_POLICY;
+    private final int OUTBOUND_QUEUE_CAPACITY;
     private final boolean USE_EVENT_EXECUTOR_GROUP;
     private final int EVENT_EXECUTOR_GROUP_THREADS;
+    private final String EVENT_EXECUTOR_MODE;
 
     private final String KEY_PASSWORD;
     private final String KEY_STORE;
@@ -48,7 +60,7 @@ public class ServerEndpointConfig {
 
     private static Integer randomPort;
 
-    public ServerEndpointConfig(String host, int port, int bossLoopGroupThreads, int workerLoopGroupThreads, boolean useCompressionHandler, int connectTimeoutMillis, int soBacklog, int writeSpinCount, int writeBufferHighWaterMark, int writeBufferLowWaterMark, int soRcvbuf, int soSndbuf, boolean tcpNodelay, boolean soKeepalive, int soLinger, boolean allowHalfClosure, int readerIdleTimeSeconds, int writerIdleTimeSeconds, int allIdleTimeSeconds, int maxFramePayloadLength, boolean useEventExecutorGroup, int eventExecutorGroupThreads, String keyPassword, String keyStore, String keyStorePassword, String keyStoreType, String trustStore, String trustStorePassword, String trustStoreType, String[] corsOrigins, Boolean corsAllowCredentials) {
+    public ServerEndpointConfig(String host, int port, int bossLoopGroupThreads, int workerLoopGroupThreads, boolean useCompressionHandler, boolean useFlushConsolidationHandler, int flushConsolidationExplicitFlushAfterFlushes, boolean flushConsolidationWhenNoReadInProgress, boolean shareEventLoopGroup, String transport, int connectTimeoutMillis, int soBacklog, boolean soReuseport, int writeSpinCount, int writeBufferHighWaterMark, int writeBufferLowWaterMark, int soRcvbuf, int soSndbuf, boolean tcpNodelay, boolean soKeepalive, int soLinger, boolean allowHalfClosure, boolean tcpQuickack, boolean tcpCork, boolean epollEdgeTriggered, int readerIdleTimeSeconds, int writerIdleTimeSeconds, int allIdleTimeSeconds, int maxFramePayloadLength, String outboundOverflowPolicy, int outboundQueueCapacity, boolean useEventExecutorGroup, int eventExecutorGroupThreads, String eventExecutorMode, String keyPassword, String keyStore, String keyStorePassword, String keyStoreType, String trustStore, String trustStorePassword, String trustStoreType, String[] corsOrigins, Boolean corsAllowCredentials) {
         if (StringUtils.isEmpty(host) || "0.0.0.0".equals(host) || "0.0.0.0/0.0.0.0".equals(host)) {
             this.HOST = "0.0.0.0";
         } else {
@@ -58,8 +70,14 @@ public class ServerEndpointConfig {
         this.BOSS_LOOP_GROUP_THREADS = bossLoopGroupThreads;
         this.WORKER_LOOP_GROUP_THREADS = workerLoopGroupThreads;
         this.USE_COMPRESSION_HANDLER = useCompressionHandler;
+        this.USE_FLUSH_CONSOLIDATION_HANDLER = useFlushConsolidationHandler;
+        this.FLUSH_CONSOLIDATION_EXPLICIT_FLUSH_AFTER_FLUSHES = flushConsolidationExplicitFlushAfterFlushes;
+        this.FLUSH_CONSOLIDATION_WHEN_NO_READ_IN_PROGRESS = flushConsolidationWhenNoReadInProgress;
+        this.SHARE_EVENT_LOOP_GROUP = shareEventLoopGroup;
+        this.TRANSPORT = transport;
         this.CONNECT_TIMEOUT_MILLIS = connectTimeoutMillis;
         this.SO_BACKLOG = soBacklog;
+        this.SO_REUSEPORT = soReuseport;
         this.WRITE_SPIN_COUNT = writeSpinCount;
         this.WRITE_BUFFER_HIGH_WATER_MARK = writeBufferHighWaterMark;
         this.WRITE_BUFFER_LOW_WATER_MARK = writeBufferLowWaterMark;
@@ -69,12 +87,18 @@ public class ServerEndpointConfig {
         this.SO_KEEPALIVE = soKeepalive;
         this.SO_LINGER = soLinger;
         this.ALLOW_HALF_CLOSURE = allowHalfClosure;
+        this.TCP_QUICKACK = tcpQuickack;
+        this.TCP_CORK = tcpCork;
+        this.EPOLL_EDGE_TRIGGERED = epollEdgeTriggered;
         this.READER_IDLE_TIME_SECONDS = readerIdleTimeSeconds;
         this.WRITER_IDLE_TIME_SECONDS = writerIdleTimeSeconds;
         this.ALL_IDLE_TIME_SECONDS = allIdleTimeSeconds;
         this.MAX_FRAME_PAYLOAD_LENGTH = maxFramePayloadLength;
+        this.OUTBOUND_OVERFLOW_POLICY = outboundOverflowPolicy;
+        this.OUTBOUND_QUEUE_CAPACITY = outboundQueueCapacity;
         this.USE_EVENT_EXECUTOR_GROUP = useEventExecutorGroup;
         this.EVENT_EXECUTOR_GROUP_THREADS = eventExecutorGroupThreads;
+        this.EVENT_EXECUTOR_MODE = eventExecutorMode;
 
         this.KEY_PASSWORD = keyPassword;
         this.KEY_STORE = keyStore;
@@ -137,6 +161,26 @@ public class ServerEndpointConfig {
         return USE_COMPRESSION_HANDLER;
     }
 
+    public boolean isUseFlushConsolidationHandler() {
+        return USE_FLUSH_CONSOLIDATION_HANDLER;
+    }
+
+    public int getFlushConsolidationExplicitFlushAfterFlushes() {
+        return FLUSH_CONSOLIDATION_EXPLICIT_FLUSH_AFTER_FLUSHES;
+    }
+
+    public boolean isFlushConsolidationWhenNoReadInProgress() {
+        return FLUSH_CONSOLIDATION_WHEN_NO_READ_IN_PROGRESS;
+    }
+
+    public boolean isShareEventLoopGroup() {
+        return SHARE_EVENT_LOOP_GROUP;
+    }
+
+    public String getTransport() {
+        return TRANSPORT;
+    }
+
     public int getConnectTimeoutMillis() {
         return CONNECT_TIMEOUT_MILLIS;
     }
@@ -145,6 +189,10 @@ public class ServerEndpointConfig {
         return SO_BACKLOG;
     }
 
+    public boolean isSoReuseport() {
+        return SO_REUSEPORT;
+    }
+
     public int getWriteSpinCount() {
         return WRITE_SPIN_COUNT;
     }
@@ -181,6 +229,18 @@ public class ServerEndpointConfig {
         return ALLOW_HALF_CLOSURE;
     }
 
+    public boolean isTcpQuickack() {
+        return TCP_QUICKACK;
+    }
+
+    public boolean isTcpCork() {
+        return TCP_CORK;
+    }
+
+    public boolean isEpollEdgeTriggered() {
+        return EPOLL_EDGE_TRIGGERED;
+    }
+
     public static Integer getRandomPort() {
         return randomPort;
     }
@@ -201,6 +261,14 @@ public class ServerEndpointConfig {
         return MAX_FRAME_PAYLOAD_LENGTH;
     }
 
+    public String getOutboundOverflowPolicy() {
+        return OUTBOUND_OVERFLOW_POLICY;
+    }
+
+    public int getOutboundQueueCapacity() {
+        return OUTBOUND_QUEUE_CAPACITY;
+    }
+
     public boolean isUseEventExecutorGroup() {
         return USE_EVENT_EXECUTOR_GROUP;
     }
@@ -209,6 +277,10 @@ public class ServerEndpointConfig {
         return EVENT_EXECUTOR_GROUP_THREADS;
     }
 
+    public String getEventExecutorMode() {
+        return EVENT_EXECUTOR_MODE;
+    }
+
     public String getKeyPassword() {
         return KEY_PASSWORD;
     }
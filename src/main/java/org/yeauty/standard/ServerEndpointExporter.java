@@ -18,9 +18,15 @@ import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.core.env.Environment;
 import org.springframework.util.ClassUtils;
 import org.yeauty.annotation.ServerEndpoint;
+import org.yeauty.codec.CodecRegistry;
 import org.yeauty.exception.DeploymentException;
+import org.yeauty.metrics.WebSocketMetrics;
 import org.yeauty.pojo.PojoEndpointServer;
 import org.yeauty.pojo.PojoMethodMapping;
+import org.yeauty.pojo.SessionRegistry;
+import org.yeauty.pojo.TopicBroker;
+import org.yeauty.support.JsonTypeExtractor;
+import org.yeauty.support.MessageTypeExtractor;
 
 import javax.net.ssl.SSLException;
 import java.net.InetSocketAddress;
@@ -40,6 +46,42 @@ public class ServerEndpointExporter extends ApplicationObjectSupport implements
     @Qualifier(value = "environment")
     Environment environment;
 
+    /**
+     * 所有端点共享的线程组，由{@link org.yeauty.annotation.NettyWebSocketSupportConfiguration}声明，未声明该bean时由exporter自行创建
+     */
+    @Autowired(required = false)
+    EventLoopGroupRegistry eventLoopGroupRegistry;
+
+    /**
+     * 在线会话的索引，由{@link org.yeauty.annotation.NettyWebSocketSupportConfiguration}声明，未声明该bean时由exporter自行创建
+     */
+    @Autowired(required = false)
+    SessionRegistry sessionRegistry;
+
+    /**
+     * 主题订阅与发布，由{@link org.yeauty.annotation.NettyWebSocketSupportConfiguration}声明，未声明该bean时由exporter自行创建
+     */
+    @Autowired(required = false)
+    TopicBroker topicBroker;
+
+    /**
+     * 消息的编解码器，由{@link org.yeauty.annotation.NettyWebSocketSupportConfiguration}声明，未声明该bean时由exporter自行创建
+     */
+    @Autowired(required = false)
+    CodecRegistry codecRegistry;
+
+    /**
+     * 按@OnMessage(type)分发时读取消息类型，未声明该bean时读取{@link ServerEndpoint#messageTypeField()}指定的JSON字段
+     */
+    @Autowired(required = false)
+    MessageTypeExtractor messageTypeExtractor;
+
+    /**
+     * 连接、帧和回调耗时等指标，未声明该bean时不记录
+     */
+    @Autowired(required = false)
+    WebSocketMetrics webSocketMetrics;
+
     private AbstractBeanFactory beanFactory;
     //保存连接的客户端地址和对应的server对象
     private final Map<InetSocketAddress, WebsocketServer> addressWebsocketServerMap = new HashMap<>();
@@ -69,25 +111,42 @@ public class ServerEndpointExporter extends ApplicationObjectSupport implements
      * @see ApplicationObjectSupport#getApplicationContext() 通过继承接口来获取ApplicationContext
      */
     protected void registerEndpoints() {
-        //端点类class集合
-        Set<Class<?>> endpointClasses = new LinkedHashSet<>();
+        if (eventLoopGroupRegistry == null) {
+            EventLoopGroupRegistry registry = new EventLoopGroupRegistry();
+            Runtime.getRuntime().addShutdownHook(new Thread(registry::destroy));
+            eventLoopGroupRegistry = registry;
+        }
+        if (sessionRegistry == null) {
+            sessionRegistry = new SessionRegistry();
+        }
+        if (topicBroker == null) {
+            topicBroker = new TopicBroker();
+        }
+        if (codecRegistry == null) {
+            codecRegistry = new CodecRegistry();
+        }
+        //端点bean名称 -> 端点类class
+        Map<String, Class<?>> endpointClasses = new LinkedHashMap<>();
         //获取上下文,理论上可以实现ApplicationContextAware实现
         ApplicationContext context = getApplicationContext();
         if (context != null) {
+            //注册容器中声明的Decoder、Encoder，需要在部署端点之前
+            codecRegistry.registerBeans(context);
             //获取所有标记为端点的(被@ServerEndPoint修饰的类)的bean
             String[] endpointBeanNames = context.getBeanNamesForAnnotation(ServerEndpoint.class);
-            //将所有注册为websocket服务端点的放入Set中
+            //将所有注册为websocket服务端点的放入Map中
             for (String beanName : endpointBeanNames) {
-                endpointClasses.add(context.getType(beanName));
+                endpointClasses.put(beanName, context.getType(beanName));
             }
         }
 
-        for (Class<?> endpointClass : endpointClasses) {
+        for (Map.Entry<String, Class<?>> entry : endpointClasses.entrySet()) {
+            Class<?> endpointClass = entry.getValue();
             //判断是否为代理类，如果是代理类，获取实际类注册（由于Cglib的代理类是继承实际的类）
             if (ClassUtils.isCglibProxyClass(endpointClass)) {
-                registerEndpoint(endpointClass.getSuperclass());
+                registerEndpoint(entry.getKey(), endpointClass.getSuperclass());
             } else {
-                registerEndpoint(endpointClass);
+                registerEndpoint(entry.getKey(), endpointClass);
             }
         }
         //注册完成后初始化
@@ -106,7 +165,7 @@ public class ServerEndpointExporter extends ApplicationObjectSupport implements
                 PojoEndpointServer pojoEndpointServer = websocketServer.getPojoEndpointServer();
                 StringJoiner stringJoiner = new StringJoiner(",");
                 //获取这个websocketServer上对应的所有path，以','分割【log用】
-                pojoEndpointServer.getPathMatcherSet().forEach(pathMatcher -> stringJoiner.add("'" + pathMatcher.getPattern() + "'"));
+                pojoEndpointServer.getPaths().forEach(path -> stringJoiner.add("'" + path + "'"));
                 logger.info(String.format("\033[34mNetty WebSocket started on port: %s with context path(s): %s .\033[0m", pojoEndpointServer.getPort(), stringJoiner.toString()));
             } catch (InterruptedException e) {
                 logger.error(String.format("websocket [%s] init fail", entry.getKey()), e);
@@ -120,6 +179,7 @@ public class ServerEndpointExporter extends ApplicationObjectSupport implements
     /**
      * 注册websocket server bean
      *
+     * @param beanName      websocket-server beanName，singleton模式下按名称获取端点bean
      * @param endpointClass websocket-server beanClass
      *                      <br> 该方法主要的思路就是
      *                      <br>1.获取server类上的{@link ServerEndpoint} 注解的信息 并封装为{@link ServerEndpointConfig}
@@ -128,7 +188,7 @@ public class ServerEndpointExporter extends ApplicationObjectSupport implements
      *                      <br>4.不存在{@link WebsocketServer} 则新建，新建{@link PojoEndpointServer} 其中保存了对应@OnOpen/@OnClose等方法的具体实现 如：{@link PojoEndpointServer#doOnOpen(Channel, FullHttpRequest, String)}
      *                      <br>一个ip+port对应一个webSocketServer，不管path为多少都由这一个处理
      */
-    private void registerEndpoint(Class<?> endpointClass) {
+    private void registerEndpoint(String beanName, Class<?> endpointClass) {
         //获取该类上的注解对象，pr1:解决AliasFor的问题
         ServerEndpoint annotation = AnnotatedElementUtils.findMergedAnnotation(endpointClass, ServerEndpoint.class);
         //findMergedAnnotation中有可能返回null
@@ -139,11 +199,21 @@ public class ServerEndpointExporter extends ApplicationObjectSupport implements
         ServerEndpointConfig serverEndpointConfig = buildConfig(annotation);
 
         ApplicationContext context = getApplicationContext();
+        //端点实例的创建方式是每个端点类各自的，不放在按端口共享的ServerEndpointConfig中
+        String instanceMode = resolveAnnotationValue(annotation.instanceMode(), String.class, "instanceMode");
+        int instancePoolSize = resolveAnnotationValue(annotation.instancePoolSize(), Integer.class, "instancePoolSize");
+        //同一端口上的端点可以各自限制聚合后的消息长度
+        int maxContentLength = resolveAnnotationValue(annotation.maxContentLength(), Integer.class, "maxContentLength");
+        MessageTypeExtractor typeExtractor = messageTypeExtractor;
+        if (typeExtractor == null) {
+            typeExtractor = new JsonTypeExtractor(resolveAnnotationValue(annotation.messageTypeField(), String.class, "messageTypeField"));
+        }
+        MessageTypeExtractor requestIdExtractor = new JsonTypeExtractor(resolveAnnotationValue(annotation.requestIdField(), String.class, "requestIdField"));
         //缓存对象，保存了对应的注解及参数
         PojoMethodMapping pojoMethodMapping = null;
         try {
             //初始化该类中的注解对应的方法，如OnOpen等
-            pojoMethodMapping = new PojoMethodMapping(endpointClass, context, beanFactory);
+            pojoMethodMapping = new PojoMethodMapping(endpointClass, context, beanFactory, instanceMode, instancePoolSize, maxContentLength, codecRegistry, typeExtractor, requestIdExtractor, beanName);
         } catch (DeploymentException e) {
             throw new IllegalStateException("Failed to register ServerEndpointConfig: " + serverEndpointConfig, e);
         }
@@ -155,9 +225,13 @@ public class ServerEndpointExporter extends ApplicationObjectSupport implements
         WebsocketServer websocketServer = addressWebsocketServerMap.get(inetSocketAddress);
         if (websocketServer == null) {
             //初始化PojoEndpointServer 里面主要使用缓存的PojoMethodMapping的信息，执行方法，如doOnOpen
-            PojoEndpointServer pojoEndpointServer = new PojoEndpointServer(pojoMethodMapping, serverEndpointConfig, path);
+            PojoEndpointServer pojoEndpointServer = new PojoEndpointServer(pojoMethodMapping, serverEndpointConfig, path, sessionRegistry, topicBroker, webSocketMetrics);
+            //共享线程组的端点登记自己的线程数
+            if (serverEndpointConfig.isShareEventLoopGroup()) {
+                eventLoopGroupRegistry.register(serverEndpointConfig);
+            }
             //将缓存好的PojoEndpointServer(具体规定的onOpen等方法)和ServerEndPointConfig(注解上的信息) 新建WebSocketServer对象
-            websocketServer = new WebsocketServer(pojoEndpointServer, serverEndpointConfig);
+            websocketServer = new WebsocketServer(pojoEndpointServer, serverEndpointConfig, eventLoopGroupRegistry);
             //放入Map中
             addressWebsocketServerMap.put(inetSocketAddress, websocketServer);
         } else {
@@ -180,9 +254,15 @@ public class ServerEndpointExporter extends ApplicationObjectSupport implements
         int bossLoopGroupThreads = resolveAnnotationValue(annotation.bossLoopGroupThreads(), Integer.class, "bossLoopGroupThreads");
         int workerLoopGroupThreads = resolveAnnotationValue(annotation.workerLoopGroupThreads(), Integer.class, "workerLoopGroupThreads");
         boolean useCompressionHandler = resolveAnnotationValue(annotation.useCompressionHandler(), Boolean.class, "useCompressionHandler");
+        boolean useFlushConsolidationHandler = resolveAnnotationValue(annotation.useFlushConsolidationHandler(), Boolean.class, "useFlushConsolidationHandler");
+        int flushConsolidationExplicitFlushAfterFlushes = resolveAnnotationValue(annotation.flushConsolidationExplicitFlushAfterFlushes(), Integer.class, "flushConsolidationExplicitFlushAfterFlushes");
+        boolean flushConsolidationWhenNoReadInProgress = resolveAnnotationValue(annotation.flushConsolidationWhenNoReadInProgress(), Boolean.class, "flushConsolidationWhenNoReadInProgress");
+        boolean shareEventLoopGroup = resolveAnnotationValue(annotation.shareEventLoopGroup(), Boolean.class, "shareEventLoopGroup");
+        String transport = resolveAnnotationValue(annotation.transport(), String.class, "transport");
 
         int optionConnectTimeoutMillis = resolveAnnotationValue(annotation.optionConnectTimeoutMillis(), Integer.class, "optionConnectTimeoutMillis");
         int optionSoBacklog = resolveAnnotationValue(annotation.optionSoBacklog(), Integer.class, "optionSoBacklog");
+        boolean optionSoReuseport = resolveAnnotationValue(annotation.optionSoReuseport(), Boolean.class, "optionSoReuseport");
 
         int childOptionWriteSpinCount = resolveAnnotationValue(annotation.childOptionWriteSpinCount(), Integer.class, "childOptionWriteSpinCount");
         int childOptionWriteBufferHighWaterMark = resolveAnnotationValue(annotation.childOptionWriteBufferHighWaterMark(), Integer.class, "childOptionWriteBufferHighWaterMark");
@@ -193,15 +273,21 @@ public class ServerEndpointExporter extends ApplicationObjectSupport implements
         boolean childOptionSoKeepalive = resolveAnnotationValue(annotation.childOptionSoKeepalive(), Boolean.class, "childOptionSoKeepalive");
         int childOptionSoLinger = resolveAnnotationValue(annotation.childOptionSoLinger(), Integer.class, "childOptionSoLinger");
         boolean childOptionAllowHalfClosure = resolveAnnotationValue(annotation.childOptionAllowHalfClosure(), Boolean.class, "childOptionAllowHalfClosure");
+        boolean childOptionTcpQuickack = resolveAnnotationValue(annotation.childOptionTcpQuickack(), Boolean.class, "childOptionTcpQuickack");
+        boolean childOptionTcpCork = resolveAnnotationValue(annotation.childOptionTcpCork(), Boolean.class, "childOptionTcpCork");
+        boolean childOptionEpollEdgeTriggered = resolveAnnotationValue(annotation.childOptionEpollEdgeTriggered(), Boolean.class, "childOptionEpollEdgeTriggered");
 
         int readerIdleTimeSeconds = resolveAnnotationValue(annotation.readerIdleTimeSeconds(), Integer.class, "readerIdleTimeSeconds");
         int writerIdleTimeSeconds = resolveAnnotationValue(annotation.writerIdleTimeSeconds(), Integer.class, "writerIdleTimeSeconds");
         int allIdleTimeSeconds = resolveAnnotationValue(annotation.allIdleTimeSeconds(), Integer.class, "allIdleTimeSeconds");
 
         int maxFramePayloadLength = resolveAnnotationValue(annotation.maxFramePayloadLength(), Integer.class, "maxFramePayloadLength");
+        String outboundOverflowPolicy = resolveAnnotationValue(annotation.outboundOverflowPolicy(), String.class, "outboundOverflowPolicy");
+        int outboundQueueCapacity = resolveAnnotationValue(annotation.outboundQueueCapacity(), Integer.class, "outboundQueueCapacity");
 
         boolean useEventExecutorGroup = resolveAnnotationValue(annotation.useEventExecutorGroup(), Boolean.class, "useEventExecutorGroup");
         int eventExecutorGroupThreads = resolveAnnotationValue(annotation.eventExecutorGroupThreads(), Integer.class, "eventExecutorGroupThreads");
+        String eventExecutorMode = resolveAnnotationValue(annotation.eventExecutorMode(), String.class, "eventExecutorMode");
 
         String sslKeyPassword = resolveAnnotationValue(annotation.sslKeyPassword(), String.class, "sslKeyPassword");
         String sslKeyStore = resolveAnnotationValue(annotation.sslKeyStore(), String.class, "sslKeyStore");
@@ -220,10 +306,10 @@ public class ServerEndpointExporter extends ApplicationObjectSupport implements
         Boolean corsAllowCredentials = resolveAnnotationValue(annotation.corsAllowCredentials(), Boolean.class, "corsAllowCredentials");
 
         ServerEndpointConfig serverEndpointConfig = new ServerEndpointConfig(host, port, bossLoopGroupThreads, workerLoopGroupThreads
-                , useCompressionHandler, optionConnectTimeoutMillis, optionSoBacklog, childOptionWriteSpinCount, childOptionWriteBufferHighWaterMark
+                , useCompressionHandler, useFlushConsolidationHandler, flushConsolidationExplicitFlushAfterFlushes, flushConsolidationWhenNoReadInProgress, shareEventLoopGroup, transport, optionConnectTimeoutMillis, optionSoBacklog, optionSoReuseport, childOptionWriteSpinCount, childOptionWriteBufferHighWaterMark
                 , childOptionWriteBufferLowWaterMark, childOptionSoRcvbuf, childOptionSoSndbuf, childOptionTcpNodelay, childOptionSoKeepalive
-                , childOptionSoLinger, childOptionAllowHalfClosure, readerIdleTimeSeconds, writerIdleTimeSeconds, allIdleTimeSeconds
-                , maxFramePayloadLength, useEventExecutorGroup, eventExecutorGroupThreads
+                , childOptionSoLinger, childOptionAllowHalfClosure, childOptionTcpQuickack, childOptionTcpCork, childOptionEpollEdgeTriggered, readerIdleTimeSeconds, writerIdleTimeSeconds, allIdleTimeSeconds
+                , maxFramePayloadLength, outboundOverflowPolicy, outboundQueueCapacity, useEventExecutorGroup, eventExecutorGroupThreads, eventExecutorMode
                 , sslKeyPassword, sslKeyStore, sslKeyStorePassword, sslKeyStoreType
                 , sslTrustStore, sslTrustStorePassword, sslTrustStoreType
                 , corsOrigins, corsAllowCredentials);
@@ -0,0 +1,260 @@
+package org.yeauty.standard;
+
+import io.netty.util.concurrent.*;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 为每个会话提供一个有序邮箱的{@link EventExecutorGroup}，用于替代{@link DefaultEventExecutorGroup}
+ * <br>pipeline为每个channel调用一次{@link #next()}，每次都返回一个新的邮箱：同一会话的任务按提交顺序串行执行，
+ * 不同会话的任务互不阻塞，都运行在共享的{@link ExecutorService}上(虚拟线程或ForkJoinPool)，
+ * 而DefaultEventExecutorGroup把channel固定在某一个线程上，一个慢会话会拖住同一线程上的所有会话
+ * <br>邮箱不支持schedule，需要定时任务时使用channel的EventLoop
+ */
+public class SessionMailboxExecutorGroup extends AbstractEventExecutorGroup {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(SessionMailboxExecutorGroup.class);
+
+    /**
+     * 一次最多连续执行的任务数，之后重新提交，避免一个繁忙的会话长期占用线程
+     */
+    private static final int MAX_TASKS_PER_RUN = 64;
+
+    private final ExecutorService executor;
+    private final Promise<Void> terminationFuture = new DefaultPromise<>(GlobalEventExecutor.INSTANCE);
+    private final AtomicLong pendingTasks = new AtomicLong();
+    private final AtomicLong completedTasks = new AtomicLong();
+    private final AtomicInteger maxMailboxDepth = new AtomicInteger();
+    private final AtomicInteger activeMailboxes = new AtomicInteger();
+
+    /**
+     * @param executor 执行邮箱任务的线程池，随本group一起关闭
+     */
+    public SessionMailboxExecutorGroup(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * @return 所有邮箱中等待执行的任务数
+     */
+    public long pendingTasks() {
+        return pendingTasks.get();
+    }
+
+    /**
+     * @return 已经执行完的任务数
+     */
+    public long completedTasks() {
+        return completedTasks.get();
+    }
+
+    /**
+     * @return 单个邮箱出现过的最大积压任务数，可用于发现热点会话
+     */
+    public int maxMailboxDepth() {
+        return maxMailboxDepth.get();
+    }
+
+    /**
+     * @return 当前有任务待执行或正在执行的邮箱数
+     */
+    public int activeMailboxes() {
+        return activeMailboxes.get();
+    }
+
+    /**
+     * @return 执行邮箱任务的线程池，forkjoin模式下可以读取{@link java.util.concurrent.ForkJoinPool#getStealCount()}等指标
+     */
+    public ExecutorService executor() {
+        return executor;
+    }
+
+    @Override
+    public EventExecutor next() {
+        return new Mailbox();
+    }
+
+    /**
+     * 邮箱与channel一一对应，不由group管理
+     */
+    @Override
+    public Iterator<EventExecutor> iterator() {
+        return Collections.emptyIterator();
+    }
+
+    @Override
+    public boolean isShuttingDown() {
+        return executor.isShutdown();
+    }
+
+    @Override
+    public Future<?> shutdownGracefully(long quietPeriod, long timeout, TimeUnit unit) {
+        if (!executor.isShutdown()) {
+            executor.shutdown();
+            GlobalEventExecutor.INSTANCE.execute(() -> {
+                try {
+                    executor.awaitTermination(timeout, unit);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                terminationFuture.trySuccess(null);
+            });
+        }
+        return terminationFuture;
+    }
+
+    @Override
+    public Future<?> terminationFuture() {
+        return terminationFuture;
+    }
+
+    @Override
+    @Deprecated
+    public void shutdown() {
+        shutdownGracefully();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return executor.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return executor.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * 一个会话的串行任务队列，同一时刻最多只有一个线程在执行它的任务
+     */
+    private final class Mailbox extends AbstractEventExecutor implements Runnable {
+
+        private final Queue<Runnable> tasks = PlatformDependent.newMpscQueue();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicInteger scheduled = new AtomicInteger();
+        private volatile Thread thread;
+
+        Mailbox() {
+            super(SessionMailboxExecutorGroup.this);
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            if (task == null) {
+                throw new NullPointerException("task");
+            }
+            tasks.offer(task);
+            pendingTasks.incrementAndGet();
+            int depth = size.incrementAndGet();
+            int max;
+            while (depth > (max = maxMailboxDepth.get()) && !maxMailboxDepth.compareAndSet(max, depth)) {
+                //重试直到更新成功
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(0, 1)) {
+                activeMailboxes.incrementAndGet();
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    activeMailboxes.decrementAndGet();
+                    scheduled.set(0);
+                    throw e;
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            thread = Thread.currentThread();
+            try {
+                for (int i = 0; i < MAX_TASKS_PER_RUN; i++) {
+                    Runnable task = tasks.poll();
+                    if (task == null) {
+                        break;
+                    }
+                    size.decrementAndGet();
+                    pendingTasks.decrementAndGet();
+                    try {
+                        task.run();
+                    } catch (Throwable t) {
+                        logger.warn("A task raised an exception. Task: {}", task, t);
+                    } finally {
+                        completedTasks.incrementAndGet();
+                    }
+                }
+            } finally {
+                thread = null;
+                activeMailboxes.decrementAndGet();
+                scheduled.set(0);
+                if (!tasks.isEmpty()) {
+                    try {
+                        schedule();
+                    } catch (RejectedExecutionException e) {
+                        logger.debug("mailbox executor is shut down", e);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean inEventLoop(Thread thread) {
+            return thread == this.thread;
+        }
+
+        @Override
+        public boolean isShuttingDown() {
+            return SessionMailboxExecutorGroup.this.isShuttingDown();
+        }
+
+        /**
+         * 邮箱随channel结束，关闭由group负责
+         */
+        @Override
+        public Future<?> shutdownGracefully(long quietPeriod, long timeout, TimeUnit unit) {
+            return terminationFuture();
+        }
+
+        @Override
+        public Future<?> terminationFuture() {
+            return terminationFuture;
+        }
+
+        @Override
+        @Deprecated
+        public void shutdown() {
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return SessionMailboxExecutorGroup.this.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return SessionMailboxExecutorGroup.this.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return SessionMailboxExecutorGroup.this.awaitTermination(timeout, unit);
+        }
+    }
+}
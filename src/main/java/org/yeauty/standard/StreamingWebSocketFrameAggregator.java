@@ -0,0 +1,46 @@
+package org.yeauty.standard;
+
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.websocketx.*;
+
+/**
+ * 只聚合需要完整消息的类型，以{@link org.yeauty.pojo.MessageChunk}接收的文本或二进制消息的各帧直接向后传递
+ * <br>聚合后的消息超过maxContentLength时以1009关闭连接
+ */
+class StreamingWebSocketFrameAggregator extends WebSocketFrameAggregator {
+
+    private final boolean streamText;
+    private final boolean streamBinary;
+
+    /**
+     * 当前是否处于一条不聚合的分片消息中
+     */
+    private boolean streaming;
+
+    StreamingWebSocketFrameAggregator(int maxContentLength, boolean streamText, boolean streamBinary) {
+        super(maxContentLength);
+        this.streamText = streamText;
+        this.streamBinary = streamBinary;
+    }
+
+    @Override
+    public boolean acceptInboundMessage(Object msg) throws Exception {
+        if (msg instanceof ContinuationWebSocketFrame) {
+            if (streaming) {
+                streaming = !((ContinuationWebSocketFrame) msg).isFinalFragment();
+                return false;
+            }
+        } else if ((streamText && msg instanceof TextWebSocketFrame) || (streamBinary && msg instanceof BinaryWebSocketFrame)) {
+            streaming = !((WebSocketFrame) msg).isFinalFragment();
+            return false;
+        }
+        return super.acceptInboundMessage(msg);
+    }
+
+    @Override
+    protected void handleOversizedMessage(ChannelHandlerContext ctx, WebSocketFrame oversized) throws Exception {
+        ctx.writeAndFlush(new CloseWebSocketFrame(1009, "Message too big")).addListener(ChannelFutureListener.CLOSE);
+        super.handleOversizedMessage(ctx, oversized);
+    }
+}
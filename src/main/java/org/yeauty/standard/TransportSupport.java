@@ -0,0 +1,102 @@
+package org.yeauty.standard;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollMode;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * 传输层选择：epoll可用时使用native epoll，否则回退到nio
+ * <br>epoll相关的类都放在{@link EpollHolder}中，classpath中没有netty-transport-native-epoll时不会被加载
+ */
+final class TransportSupport {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(TransportSupport.class);
+
+    private static final boolean EPOLL_PRESENT = ClassUtils.isPresent("io.netty.channel.epoll.Epoll", TransportSupport.class.getClassLoader());
+
+    private TransportSupport() {
+    }
+
+    static boolean isEpollAvailable() {
+        return EPOLL_PRESENT && EpollHolder.isAvailable();
+    }
+
+    /**
+     * 根据{@link org.yeauty.annotation.ServerEndpoint#transport()}判断是否使用epoll
+     *
+     * @param transport auto、nio或epoll
+     * @return 是否使用epoll
+     */
+    static boolean useEpoll(String transport) {
+        if (StringUtils.isEmpty(transport) || "auto".equalsIgnoreCase(transport)) {
+            return isEpollAvailable();
+        }
+        if ("nio".equalsIgnoreCase(transport)) {
+            return false;
+        }
+        if ("epoll".equalsIgnoreCase(transport)) {
+            if (isEpollAvailable()) {
+                return true;
+            }
+            logger.warn("epoll transport is not available on this platform, fall back to nio");
+            return false;
+        }
+        throw new IllegalArgumentException("Unknown transport '" + transport + "', expected one of auto, nio, epoll");
+    }
+
+    static EventLoopGroup newEventLoopGroup(boolean epoll, int threads) {
+        return epoll ? EpollHolder.newEventLoopGroup(threads) : new NioEventLoopGroup(threads);
+    }
+
+    static Class<? extends ServerChannel> serverChannelClass(boolean epoll) {
+        return epoll ? EpollHolder.serverChannelClass() : NioServerSocketChannel.class;
+    }
+
+    static void applyEpollChildOptions(ServerBootstrap bootstrap, ServerEndpointConfig config) {
+        EpollHolder.applyChildOptions(bootstrap, config);
+    }
+
+    static void applyEpollReuseport(ServerBootstrap bootstrap) {
+        EpollHolder.applyReuseport(bootstrap);
+    }
+
+    private static final class EpollHolder {
+
+        static boolean isAvailable() {
+            if (!Epoll.isAvailable()) {
+                logger.debug("epoll is not available", Epoll.unavailabilityCause());
+                return false;
+            }
+            return true;
+        }
+
+        static EventLoopGroup newEventLoopGroup(int threads) {
+            return new EpollEventLoopGroup(threads);
+        }
+
+        static Class<? extends ServerChannel> serverChannelClass() {
+            return EpollServerSocketChannel.class;
+        }
+
+        static void applyReuseport(ServerBootstrap bootstrap) {
+            bootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+        }
+
+        static void applyChildOptions(ServerBootstrap bootstrap, ServerEndpointConfig config) {
+            bootstrap.childOption(EpollChannelOption.TCP_QUICKACK, config.isTcpQuickack())
+                    .childOption(EpollChannelOption.TCP_CORK, config.isTcpCork())
+                    .childOption(EpollChannelOption.EPOLL_MODE, config.isEpollEdgeTriggered() ? EpollMode.EDGE_TRIGGERED : EpollMode.LEVEL_TRIGGERED);
+        }
+    }
+}
@@ -10,6 +10,11 @@ class WebSocketServerHandler extends SimpleChannelInboundHandler<WebSocketFrame>
 
     private final PojoEndpointServer pojoEndpointServer;
 
+    /**
+     * 逐帧接收的分片消息是否是文本，用于分发ContinuationWebSocketFrame
+     */
+    private boolean continuationText;
+
     public WebSocketServerHandler(PojoEndpointServer pojoEndpointServer) {
         this.pojoEndpointServer = pojoEndpointServer;
     }
@@ -29,6 +34,12 @@ class WebSocketServerHandler extends SimpleChannelInboundHandler<WebSocketFrame>
         pojoEndpointServer.doOnClose(ctx.channel());
     }
 
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        pojoEndpointServer.doOnWritabilityChanged(ctx.channel());
+        super.channelWritabilityChanged(ctx);
+    }
+
     @Override
     public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
         pojoEndpointServer.doOnEvent(ctx.channel(), evt);
@@ -36,6 +47,7 @@ class WebSocketServerHandler extends SimpleChannelInboundHandler<WebSocketFrame>
 
     private void handleWebSocketFrame(ChannelHandlerContext ctx, WebSocketFrame frame) {
         if (frame instanceof TextWebSocketFrame) {
+            continuationText = true;
             pojoEndpointServer.doOnMessage(ctx.channel(), frame);
             return;
         }
@@ -48,9 +60,19 @@ class WebSocketServerHandler extends SimpleChannelInboundHandler<WebSocketFrame>
             return;
         }
         if (frame instanceof BinaryWebSocketFrame) {
+            continuationText = false;
             pojoEndpointServer.doOnBinary(ctx.channel(), frame);
             return;
         }
+        if (frame instanceof ContinuationWebSocketFrame) {
+            //只有不聚合的分片消息才会收到
+            if (continuationText) {
+                pojoEndpointServer.doOnMessage(ctx.channel(), frame);
+            } else {
+                pojoEndpointServer.doOnBinary(ctx.channel(), frame);
+            }
+            return;
+        }
         if (frame instanceof PongWebSocketFrame) {
             return;
         }
@@ -2,9 +2,7 @@ package org.yeauty.standard;
 
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpServerCodec;
 import io.netty.handler.codec.http.cors.CorsConfig;
@@ -13,11 +11,12 @@ import io.netty.handler.codec.http.cors.CorsHandler;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
 import io.netty.handler.ssl.SslContext;
-import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.concurrent.EventExecutorGroup;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 import org.springframework.util.StringUtils;
+import org.yeauty.metrics.WebSocketMetrics;
 import org.yeauty.pojo.PojoEndpointServer;
 import org.yeauty.util.SslUtils;
 
@@ -37,12 +36,16 @@ public class WebsocketServer {
 
     private final ServerEndpointConfig config;
 
+    private final EventLoopGroupRegistry eventLoopGroupRegistry;
+
+    private EventExecutorGroup eventExecutorGroup;
 
     private static final InternalLogger logger = InternalLoggerFactory.getInstance(WebsocketServer.class);
 
-    public WebsocketServer(PojoEndpointServer webSocketServerHandler, ServerEndpointConfig serverEndpointConfig) {
+    public WebsocketServer(PojoEndpointServer webSocketServerHandler, ServerEndpointConfig serverEndpointConfig, EventLoopGroupRegistry eventLoopGroupRegistry) {
         this.pojoEndpointServer = webSocketServerHandler;
         this.config = serverEndpointConfig;
+        this.eventLoopGroupRegistry = eventLoopGroupRegistry;
 
     }
 
@@ -65,16 +68,44 @@ public class WebsocketServer {
         Boolean corsAllowCredentials = config.getCorsAllowCredentials();
         final CorsConfig corsConfig = createCorsConfig(corsOrigins, corsAllowCredentials);
 
+        //选择传输层，epoll可用时优先使用epoll
+        boolean useEpoll = TransportSupport.useEpoll(config.getTransport());
+        //是否使用所有端点共享的线程组
+        boolean shared = config.isShareEventLoopGroup() && eventLoopGroupRegistry != null;
+        //共享的线程组以"shared"代替端口登记指标
+        WebSocketMetrics metrics = pojoEndpointServer.getMetrics();
+        String metricsPort = shared ? "shared" : String.valueOf(config.getPort());
         //配置用户使用的组
         if (config.isUseEventExecutorGroup()) {
-            eventExecutorGroup = new DefaultEventExecutorGroup(config.getEventExecutorGroupThreads() == 0 ? 16 : config.getEventExecutorGroupThreads());
+            //virtual模式在JDK 21以下回退到default
+            String eventExecutorMode = EventExecutorSupport.resolveMode(config.getEventExecutorMode());
+            if (shared) {
+                eventExecutorGroup = eventLoopGroupRegistry.getEventExecutorGroup(eventExecutorMode);
+            } else {
+                eventExecutorGroup = EventExecutorSupport.newEventExecutorGroup(eventExecutorMode, config.getEventExecutorGroupThreads());
+            }
+            metrics.bindExecutor("eventExecutor-" + eventExecutorMode, metricsPort, eventExecutorGroup);
+        }
+        this.eventExecutorGroup = eventExecutorGroup;
+        //SO_REUSEPORT：每个worker线程对应一个监听socket，由内核把新连接分散到各个socket
+        boolean reuseport = false;
+        if (config.isSoReuseport()) {
+            if (useEpoll) {
+                reuseport = true;
+            } else {
+                logger.warn(String.format("optionSoReuseport requires epoll transport, only one socket will listen on port %s", config.getPort()));
+            }
+        }
+        EventLoopGroup worker = shared ? eventLoopGroupRegistry.getWorkerGroup(useEpoll) : TransportSupport.newEventLoopGroup(useEpoll, config.getWorkerLoopGroupThreads());
+        //reuseport时监听socket直接注册在worker线程上，不需要boss
+        EventLoopGroup boss = null;
+        if (!reuseport) {
+            boss = shared ? eventLoopGroupRegistry.getBossGroup(useEpoll) : TransportSupport.newEventLoopGroup(useEpoll, config.getBossLoopGroupThreads());
         }
-        EventLoopGroup boss = new NioEventLoopGroup(config.getBossLoopGroupThreads());
-        EventLoopGroup worker = new NioEventLoopGroup(config.getWorkerLoopGroupThreads());
+        metrics.bindExecutor("worker", metricsPort, worker);
         ServerBootstrap bootstrap = new ServerBootstrap();
         EventExecutorGroup finalEventExecutorGroup = eventExecutorGroup;
-        bootstrap.group(boss, worker)
-                .channel(NioServerSocketChannel.class)
+        bootstrap.channel(TransportSupport.serverChannelClass(useEpoll))
                 .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, config.getConnectTimeoutMillis())
                 .option(ChannelOption.SO_BACKLOG, config.getSoBacklog())
                 .childOption(ChannelOption.WRITE_SPIN_COUNT, config.getWriteSpinCount())
@@ -84,9 +115,9 @@ public class WebsocketServer {
                 .childOption(ChannelOption.SO_LINGER, config.getSoLinger())
                 .childOption(ChannelOption.ALLOW_HALF_CLOSURE, config.isAllowHalfClosure())
                 .handler(new LoggingHandler(LogLevel.DEBUG))
-                .childHandler(new ChannelInitializer<NioSocketChannel>() {
+                .childHandler(new ChannelInitializer<SocketChannel>() {
                     @Override
-                    protected void initChannel(NioSocketChannel ch) {
+                    protected void initChannel(SocketChannel ch) {
                         ChannelPipeline pipeline = ch.pipeline();
                         //sslHandler
                         if (sslCtx != null) {
@@ -111,29 +142,52 @@ public class WebsocketServer {
         if (config.getSoSndbuf() != -1) {
             bootstrap.childOption(ChannelOption.SO_SNDBUF, config.getSoSndbuf());
         }
+        //epoll特有的childOption
+        if (useEpoll) {
+            TransportSupport.applyEpollChildOptions(bootstrap, config);
+        }
         //初始化绑定port
-        ChannelFuture channelFuture;
-        if ("0.0.0.0".equals(config.getHost())) {
-            channelFuture = bootstrap.bind(config.getPort());
-        } else {
-            try {
-                channelFuture = bootstrap.bind(new InetSocketAddress(InetAddress.getByName(config.getHost()), config.getPort()));
-            } catch (UnknownHostException e) {
-                channelFuture = bootstrap.bind(config.getHost(), config.getPort());
-                e.printStackTrace();
+        if (reuseport) {
+            TransportSupport.applyEpollReuseport(bootstrap);
+            //每个worker线程绑定一个监听socket，accept分散在各个worker线程上
+            for (EventExecutor loop : worker) {
+                bind(bootstrap.clone().group((EventLoop) loop, worker));
             }
+        } else {
+            bind(bootstrap.group(boss, worker));
         }
+        //jvm结束时，结束eventLoopGroup，共享的线程组由EventLoopGroupRegistry负责关闭
+        if (!shared) {
+            EventLoopGroup finalBoss = boss;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                if (finalBoss != null) {
+                    finalBoss.shutdownGracefully().syncUninterruptibly();
+                }
+                worker.shutdownGracefully().syncUninterruptibly();
+            }));
+        }
+    }
+
+    private void bind(ServerBootstrap bootstrap) {
+        ChannelFuture channelFuture = bind0(bootstrap);
         //异步执行
         channelFuture.addListener(future -> {
             if (!future.isSuccess()) {
                 future.cause().printStackTrace();
             }
         });
-        //jvm结束时，结束eventLoopGroup
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            boss.shutdownGracefully().syncUninterruptibly();
-            worker.shutdownGracefully().syncUninterruptibly();
-        }));
+    }
+
+    private ChannelFuture bind0(ServerBootstrap bootstrap) {
+        if ("0.0.0.0".equals(config.getHost())) {
+            return bootstrap.bind(config.getPort());
+        }
+        try {
+            return bootstrap.bind(new InetSocketAddress(InetAddress.getByName(config.getHost()), config.getPort()));
+        } catch (UnknownHostException e) {
+            e.printStackTrace();
+            return bootstrap.bind(config.getHost(), config.getPort());
+        }
     }
 
     private CorsConfig createCorsConfig(String[] corsOrigins, Boolean corsAllowCredentials) {
@@ -160,4 +214,11 @@ public class WebsocketServer {
     public PojoEndpointServer getPojoEndpointServer() {
         return pojoEndpointServer;
     }
+
+    /**
+     * @return 端点使用的eventExecutorGroup，未启用useEventExecutorGroup时为null
+     */
+    public EventExecutorGroup getEventExecutorGroup() {
+        return eventExecutorGroup;
+    }
 }
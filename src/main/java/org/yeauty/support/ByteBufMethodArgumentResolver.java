@@ -0,0 +1,25 @@
+package org.yeauty.support;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import org.springframework.core.MethodParameter;
+import org.yeauty.annotation.OnBinary;
+import org.yeauty.annotation.OnMessage;
+
+/**
+ * 直接注入帧的{@link ByteBuf}，不复制
+ * <br>ByteBuf只在本次回调中有效，回调返回后会被释放；需要在回调之外使用时调用{@link ByteBuf#retain()}，用完后自行release
+ */
+public class ByteBufMethodArgumentResolver implements MethodArgumentResolver {
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return (parameter.getMethod().isAnnotationPresent(OnBinary.class) || parameter.getMethod().isAnnotationPresent(OnMessage.class))
+                && ByteBuf.class.isAssignableFrom(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, Channel channel, Object object) throws Exception {
+        return ((WebSocketFrame) object).content();
+    }
+}
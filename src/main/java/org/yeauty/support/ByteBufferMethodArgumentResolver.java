@@ -0,0 +1,28 @@
+package org.yeauty.support;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import org.springframework.core.MethodParameter;
+import org.yeauty.annotation.OnBinary;
+import org.yeauty.annotation.OnMessage;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 注入帧内容的只读{@link ByteBuffer}视图，单个内存块的ByteBuf不会复制
+ * <br>视图只在本次回调中有效，回调返回后底层内存会被释放或复用
+ */
+public class ByteBufferMethodArgumentResolver implements MethodArgumentResolver {
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return (parameter.getMethod().isAnnotationPresent(OnBinary.class) || parameter.getMethod().isAnnotationPresent(OnMessage.class))
+                && ByteBuffer.class.isAssignableFrom(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, Channel channel, Object object) throws Exception {
+        ByteBuf content = ((WebSocketFrame) object).content();
+        return content.nioBuffer().asReadOnlyBuffer();
+    }
+}
@@ -1,8 +1,8 @@
 package org.yeauty.support;
 
-import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.channel.Channel;
-import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
 import org.springframework.core.MethodParameter;
 import org.yeauty.annotation.OnBinary;
 
@@ -14,10 +14,7 @@ public class ByteMethodArgumentResolver implements MethodArgumentResolver {
 
     @Override
     public Object resolveArgument(MethodParameter parameter, Channel channel, Object object) throws Exception {
-        BinaryWebSocketFrame binaryWebSocketFrame = (BinaryWebSocketFrame) object;
-        ByteBuf content = binaryWebSocketFrame.content();
-        byte[] bytes = new byte[content.readableBytes()];
-        content.readBytes(bytes);
-        return bytes;
+        //不移动readerIndex，同一方法中的ByteBuf、ByteBuffer参数仍能读到完整内容
+        return ByteBufUtil.getBytes(((WebSocketFrame) object).content());
     }
 }
@@ -0,0 +1,22 @@
+package org.yeauty.support;
+
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import org.springframework.core.MethodParameter;
+import org.yeauty.annotation.OnMessage;
+
+/**
+ * 以{@link CharSequence}注入文本帧，首次访问时才解码
+ * <br>纯ASCII的文本直接按字节读取，不复制也不解码；视图只在本次回调中有效，需要保留时调用toString()
+ */
+public class CharSequenceMethodArgumentResolver implements MethodArgumentResolver {
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.getMethod().isAnnotationPresent(OnMessage.class) && CharSequence.class == parameter.getParameterType();
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, Channel channel, Object object) throws Exception {
+        return new Utf8CharSequence(((WebSocketFrame) object).content());
+    }
+}
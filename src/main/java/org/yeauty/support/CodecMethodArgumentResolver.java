@@ -0,0 +1,52 @@
+package org.yeauty.support;
+
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import org.springframework.core.MethodParameter;
+import org.yeauty.annotation.OnBinary;
+import org.yeauty.annotation.OnMessage;
+import org.yeauty.annotation.Payload;
+import org.yeauty.codec.CodecRegistry;
+import org.yeauty.codec.Decoder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 通过{@link CodecRegistry}中的{@link Decoder}把消息解码为POJO参数，直接读取帧的内容，不构造中间的String
+ * <br>在其他resolver之后匹配，只处理OnMessage、OnBinary方法中没有注解或者标注了{@link Payload}的参数；解码器在部署时选定
+ * <br>内置的编解码器只用于{@link Payload}标注的参数，否则写错类型的参数都会被JSON解码，直到运行时才报错
+ */
+public class CodecMethodArgumentResolver implements MethodArgumentResolver {
+
+    private final CodecRegistry codecRegistry;
+
+    private final Map<MethodParameter, Decoder<Object>> decoders = new ConcurrentHashMap<>();
+
+    public CodecMethodArgumentResolver(CodecRegistry codecRegistry) {
+        this.codecRegistry = codecRegistry;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        if (!parameter.getMethod().isAnnotationPresent(OnMessage.class) && !parameter.getMethod().isAnnotationPresent(OnBinary.class)) {
+            return false;
+        }
+        boolean payload = parameter.hasParameterAnnotation(Payload.class);
+        if (!payload && parameter.hasParameterAnnotations()) {
+            return false;
+        }
+        Decoder<Object> decoder = codecRegistry.findDecoder(parameter.getGenericParameterType(), payload);
+        if (decoder == null) {
+            return false;
+        }
+        decoders.put(parameter, decoder);
+        return true;
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, Channel channel, Object object) throws Exception {
+        Decoder<Object> decoder = decoders.get(parameter);
+        return decoder.decode(((WebSocketFrame) object).content(), parameter.getGenericParameterType());
+    }
+}
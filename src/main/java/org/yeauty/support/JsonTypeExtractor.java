@@ -0,0 +1,214 @@
+package org.yeauty.support;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.CharsetUtil;
+
+/**
+ * 读取JSON对象顶层的某个字段作为消息类型，如{@code {"type":"subscribe", ...}}，也用于读取请求响应中的关联id
+ * <br>只扫描字节：跳过字段名不匹配的值(包括嵌套的对象和数组)，找到字段后只把它的值转为String，不解析整个JSON；
+ * 类型字段放在第一个时只需要扫描消息的开头
+ * <br>字段名按原始字节比较，不处理字段名中的转义字符
+ */
+public class JsonTypeExtractor implements MessageTypeExtractor {
+
+    private final byte[] field;
+
+    /**
+     * @param field 类型字段的名称
+     */
+    public JsonTypeExtractor(String field) {
+        this.field = field.getBytes(CharsetUtil.UTF_8);
+    }
+
+    @Override
+    public String extract(ByteBuf content) {
+        int end = content.writerIndex();
+        int i = skipWhitespace(content, content.readerIndex(), end);
+        if (i >= end || content.getByte(i) != '{') {
+            return null;
+        }
+        i++;
+        for (; ; ) {
+            i = skipWhitespace(content, i, end);
+            if (i >= end) {
+                return null;
+            }
+            byte b = content.getByte(i);
+            if (b == ',') {
+                i++;
+                continue;
+            }
+            if (b != '"') {
+                //'}'或者非法的JSON
+                return null;
+            }
+            int keyEnd = skipString(content, i, end);
+            if (keyEnd < 0) {
+                return null;
+            }
+            boolean matched = matchField(content, i + 1, keyEnd - 1);
+            i = skipWhitespace(content, keyEnd, end);
+            if (i >= end || content.getByte(i) != ':') {
+                return null;
+            }
+            i = skipWhitespace(content, i + 1, end);
+            if (i >= end) {
+                return null;
+            }
+            if (matched) {
+                return readValue(content, i, end);
+            }
+            i = skipValue(content, i, end);
+            if (i < 0) {
+                return null;
+            }
+        }
+    }
+
+    private boolean matchField(ByteBuf content, int start, int end) {
+        if (end - start != field.length) {
+            return false;
+        }
+        for (int i = 0; i < field.length; i++) {
+            if (content.getByte(start + i) != field[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 字符串类型的值去掉引号，数字和true/false按原样返回，null和对象、数组返回null
+     */
+    private static String readValue(ByteBuf content, int start, int end) {
+        byte b = content.getByte(start);
+        if (b == '"') {
+            int valueEnd = skipString(content, start, end);
+            if (valueEnd < 0) {
+                return null;
+            }
+            String value = content.toString(start + 1, valueEnd - start - 2, CharsetUtil.UTF_8);
+            return value.indexOf('\\') == -1 ? value : unescape(value);
+        }
+        if (b == '{' || b == '[') {
+            return null;
+        }
+        int i = start;
+        while (i < end && !isDelimiter(content.getByte(i))) {
+            i++;
+        }
+        String value = content.toString(start, i - start, CharsetUtil.US_ASCII);
+        return "null".equals(value) ? null : value;
+    }
+
+    /**
+     * @return 值之后的下标，非法的JSON返回-1
+     */
+    private static int skipValue(ByteBuf content, int start, int end) {
+        byte b = content.getByte(start);
+        if (b == '"') {
+            return skipString(content, start, end);
+        }
+        if (b == '{' || b == '[') {
+            int depth = 0;
+            int i = start;
+            while (i < end) {
+                b = content.getByte(i);
+                if (b == '"') {
+                    i = skipString(content, i, end);
+                    if (i < 0) {
+                        return -1;
+                    }
+                    continue;
+                }
+                if (b == '{' || b == '[') {
+                    depth++;
+                } else if (b == '}' || b == ']') {
+                    if (--depth == 0) {
+                        return i + 1;
+                    }
+                }
+                i++;
+            }
+            return -1;
+        }
+        int i = start;
+        while (i < end && !isDelimiter(content.getByte(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * @param start 开始的引号的下标
+     * @return 结束的引号之后的下标，没有结束的引号时返回-1
+     */
+    private static int skipString(ByteBuf content, int start, int end) {
+        int i = start + 1;
+        while (i < end) {
+            byte b = content.getByte(i);
+            if (b == '\\') {
+                i += 2;
+            } else if (b == '"') {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipWhitespace(ByteBuf content, int start, int end) {
+        int i = start;
+        while (i < end && isWhitespace(content.getByte(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+
+    private static boolean isDelimiter(byte b) {
+        return b == ',' || b == '}' || b == ']' || isWhitespace(b);
+    }
+
+    private static String unescape(String value) {
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '\\' || i + 1 >= value.length()) {
+                sb.append(c);
+                continue;
+            }
+            char next = value.charAt(++i);
+            switch (next) {
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'u':
+                    if (i + 4 < value.length()) {
+                        sb.append((char) Integer.parseInt(value.substring(i + 1, i + 5), 16));
+                        i += 4;
+                    }
+                    break;
+                default:
+                    sb.append(next);
+            }
+        }
+        return sb.toString();
+    }
+}
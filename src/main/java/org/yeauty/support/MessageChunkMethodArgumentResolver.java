@@ -0,0 +1,21 @@
+package org.yeauty.support;
+
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import org.springframework.core.MethodParameter;
+import org.yeauty.annotation.OnBinary;
+import org.yeauty.annotation.OnMessage;
+import org.yeauty.pojo.MessageChunk;
+
+public class MessageChunkMethodArgumentResolver implements MethodArgumentResolver {
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return (parameter.getMethod().isAnnotationPresent(OnMessage.class) || parameter.getMethod().isAnnotationPresent(OnBinary.class))
+                && MessageChunk.class.isAssignableFrom(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, Channel channel, Object object) throws Exception {
+        return new MessageChunk((WebSocketFrame) object, parameter.getMethod().isAnnotationPresent(OnMessage.class));
+    }
+}
@@ -0,0 +1,16 @@
+package org.yeauty.support;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * 从文本消息中读取类型，用于按{@link org.yeauty.annotation.OnMessage#type()}分发
+ * <br>只需要读取类型，不需要解码整条消息；默认实现是{@link JsonTypeExtractor}，声明为Spring bean可以替换
+ */
+public interface MessageTypeExtractor {
+
+    /**
+     * @param content 帧的内容，不要修改它的readerIndex
+     * @return 消息类型，无法识别时返回null，交给没有type的OnMessage方法处理
+     */
+    String extract(ByteBuf content);
+}
@@ -20,4 +20,14 @@ public interface MethodArgumentResolver {
 	@Nullable
 	Object resolveArgument(MethodParameter parameter, Channel channel,Object object) throws Exception;
 
+	/**
+	 * Whether the resolved argument stays the same for the whole session.
+	 * Such arguments are resolved once when the session is opened (with the
+	 * handshake request as {@code object}) and reused for every frame.
+	 * @return {@code true} if the argument only depends on the session
+	 */
+	default boolean isSessionScoped() {
+		return false;
+	}
+
 }
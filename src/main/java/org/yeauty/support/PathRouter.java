@@ -0,0 +1,328 @@
+package org.yeauty.support;
+
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.QueryStringDecoder;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.yeauty.pojo.PojoEndpointServer.URI_TEMPLATE;
+
+/**
+ * 按'/'分段的前缀树路由，握手时用来匹配path并提取path变量
+ * <br>支持与{@link org.springframework.util.AntPathMatcher}相同的语法：{@code {name}}、{@code {name:regex}}、{@code *}、{@code ?}、{@code **}
+ * <br>匹配时间与path的段数成正比，多个pattern都能匹配时结果是确定的，越具体的优先：
+ * 非模板的pattern(整个path精确匹配) &gt; 静态段 &gt; 含字面量的模式段(字面量越长越优先) &gt; 整段变量 &gt; {@code *} &gt; {@code **}
+ * <br>连续的'/'之间是空段，不会被合并，{@code //ws}不能匹配{@code /ws}
+ */
+public class PathRouter {
+
+    private static final Pattern GLOB_PATTERN = Pattern.compile("\\?|\\*|\\{((?:\\{[^/]+?\\}|[^/{}]|\\\\[{}])+?)\\}");
+
+    private static final String DEFAULT_VARIABLE_PATTERN = "((?s).*)";
+
+    private final Node root = new Node(null);
+
+    /**
+     * 非模板的pattern，按整个path精确匹配，不进入前缀树
+     */
+    private final Map<String, String> staticPatterns = new HashMap<>();
+
+    /**
+     * 添加一个pattern，重复添加时保留第一次添加的
+     *
+     * @param pattern 端点的path
+     */
+    public void addPattern(String pattern) {
+        addPattern(pattern, true);
+    }
+
+    /**
+     * 添加一个pattern，重复添加时保留第一次添加的
+     *
+     * @param pattern  端点的path
+     * @param template 为false时按字面量精确匹配，与{@link DefaultPathMatcher}一致
+     */
+    public void addPattern(String pattern, boolean template) {
+        if (!template) {
+            staticPatterns.putIfAbsent(pattern, pattern);
+            return;
+        }
+        Node node = root;
+        for (String segment : tokenize(pattern)) {
+            node = node.child(segment);
+        }
+        if (pattern.endsWith("/")) {
+            if (node.trailingSlashPattern == null) {
+                node.trailingSlashPattern = pattern;
+            }
+        } else if (node.pattern == null) {
+            node.pattern = pattern;
+        }
+    }
+
+    /**
+     * 匹配path，匹配成功时把path变量放入{@link org.yeauty.pojo.PojoEndpointServer#URI_TEMPLATE}
+     *
+     * @return 匹配到的pattern，没有匹配时返回null
+     */
+    public String matchAndExtract(QueryStringDecoder decoder, Channel channel) {
+        Map<String, String> variables = new LinkedHashMap<>();
+        String pattern = match(decoder.path(), variables);
+        if (pattern != null && !variables.isEmpty()) {
+            channel.attr(URI_TEMPLATE).set(variables);
+        }
+        return pattern;
+    }
+
+    /**
+     * 匹配path
+     *
+     * @param path      请求的path
+     * @param variables 用于接收path变量
+     * @return 匹配到的pattern，没有匹配时返回null
+     */
+    public String match(String path, Map<String, String> variables) {
+        String staticPattern = staticPatterns.get(path);
+        if (staticPattern != null) {
+            return staticPattern;
+        }
+        List<String> segments = tokenize(path);
+        List<String> extracted = new ArrayList<>();
+        String pattern = match(root, segments, 0, path.endsWith("/"), extracted);
+        if (pattern != null) {
+            for (int i = 0; i < extracted.size(); i += 2) {
+                variables.put(extracted.get(i), extracted.get(i + 1));
+            }
+        }
+        return pattern;
+    }
+
+    private static String match(Node node, List<String> segments, int index, boolean trailingSlash, List<String> extracted) {
+        if (index == segments.size()) {
+            String pattern = node.terminal(trailingSlash);
+            if (pattern != null) {
+                return pattern;
+            }
+            //'**'可以匹配0个段
+            return node.doubleWildcard != null ? node.doubleWildcard.terminal(trailingSlash) : null;
+        }
+        String segment = segments.get(index);
+        Node child = node.staticChildren.get(segment);
+        if (child != null) {
+            String pattern = match(child, segments, index + 1, trailingSlash, extracted);
+            if (pattern != null) {
+                return pattern;
+            }
+        }
+        for (Node patternChild : node.patternChildren) {
+            int mark = extracted.size();
+            if (patternChild.segmentPattern.match(segment, extracted)) {
+                String pattern = match(patternChild, segments, index + 1, trailingSlash, extracted);
+                if (pattern != null) {
+                    return pattern;
+                }
+            }
+            truncate(extracted, mark);
+        }
+        if (node.doubleWildcard != null) {
+            //优先让'**'匹配尽可能少的段
+            for (int i = index; i <= segments.size(); i++) {
+                int mark = extracted.size();
+                String pattern = match(node.doubleWildcard, segments, i, trailingSlash, extracted);
+                if (pattern != null) {
+                    return pattern;
+                }
+                truncate(extracted, mark);
+            }
+        }
+        return null;
+    }
+
+    private static void truncate(List<String> list, int size) {
+        while (list.size() > size) {
+            list.remove(list.size() - 1);
+        }
+    }
+
+    /**
+     * 去掉开头和末尾的一个'/'后按'/'分段，保留空段；末尾的'/'由调用方单独处理
+     */
+    private static List<String> tokenize(String path) {
+        List<String> segments = new ArrayList<>();
+        int start = path.startsWith("/") ? 1 : 0;
+        int end = path.length();
+        if (end > start && path.charAt(end - 1) == '/') {
+            end--;
+        }
+        if (start >= end) {
+            return segments;
+        }
+        for (int i = start; i <= end; i++) {
+            if (i == end || path.charAt(i) == '/') {
+                segments.add(path.substring(start, i));
+                start = i + 1;
+            }
+        }
+        return segments;
+    }
+
+    private static boolean isStatic(String segment) {
+        return segment.indexOf('{') == -1 && segment.indexOf('*') == -1 && segment.indexOf('?') == -1;
+    }
+
+    private static final class Node {
+
+        private final SegmentPattern segmentPattern;
+
+        /**
+         * 是否是'**'段，以'**'结尾的pattern不区分path末尾的'/'
+         */
+        private final boolean doubleWildcardSegment;
+
+        private final Map<String, Node> staticChildren = new HashMap<>();
+        private final List<Node> patternChildren = new ArrayList<>();
+        private Node doubleWildcard;
+        private String pattern;
+        private String trailingSlashPattern;
+
+        Node(SegmentPattern segmentPattern) {
+            this(segmentPattern, false);
+        }
+
+        Node(SegmentPattern segmentPattern, boolean doubleWildcardSegment) {
+            this.segmentPattern = segmentPattern;
+            this.doubleWildcardSegment = doubleWildcardSegment;
+        }
+
+        Node child(String segment) {
+            if ("**".equals(segment)) {
+                if (doubleWildcard == null) {
+                    doubleWildcard = new Node(null, true);
+                }
+                return doubleWildcard;
+            }
+            if (isStatic(segment)) {
+                return staticChild(segment);
+            }
+            for (Node patternChild : patternChildren) {
+                if (patternChild.segmentPattern.source.equals(segment)) {
+                    return patternChild;
+                }
+            }
+            Node child = new Node(new SegmentPattern(segment));
+            patternChildren.add(child);
+            patternChildren.sort(Comparator.comparingInt(n -> n.segmentPattern.priority));
+            return child;
+        }
+
+        Node staticChild(String segment) {
+            return staticChildren.computeIfAbsent(segment, key -> new Node(null));
+        }
+
+        String terminal(boolean trailingSlash) {
+            if (doubleWildcardSegment) {
+                return pattern != null ? pattern : trailingSlashPattern;
+            }
+            return trailingSlash ? trailingSlashPattern : pattern;
+        }
+    }
+
+    /**
+     * 单个段的匹配规则，语法与AntPathMatcher一致
+     */
+    private static final class SegmentPattern {
+
+        private final String source;
+
+        /**
+         * 整段都是变量时不需要正则，直接取整段
+         */
+        private final String wholeVariable;
+
+        private final Pattern regex;
+        private final List<String> variableNames = new ArrayList<>();
+
+        /**
+         * 越小越优先
+         */
+        private final int priority;
+
+        SegmentPattern(String source) {
+            this.source = source;
+            Matcher matcher = GLOB_PATTERN.matcher(source);
+            StringBuilder regexBuilder = new StringBuilder();
+            int end = 0;
+            int literalLength = 0;
+            boolean hasWildcard = false;
+            while (matcher.find()) {
+                literalLength += matcher.start() - end;
+                regexBuilder.append(quote(source, end, matcher.start()));
+                String match = matcher.group();
+                if ("?".equals(match)) {
+                    regexBuilder.append('.');
+                    hasWildcard = true;
+                } else if ("*".equals(match)) {
+                    regexBuilder.append(".*");
+                    hasWildcard = true;
+                } else {
+                    int colonIdx = match.indexOf(':');
+                    if (colonIdx == -1) {
+                        regexBuilder.append(DEFAULT_VARIABLE_PATTERN);
+                        variableNames.add(matcher.group(1));
+                    } else {
+                        String variablePattern = match.substring(colonIdx + 1, match.length() - 1);
+                        regexBuilder.append('(').append(variablePattern).append(')');
+                        variableNames.add(match.substring(1, colonIdx));
+                    }
+                }
+                end = matcher.end();
+            }
+            literalLength += source.length() - end;
+            regexBuilder.append(quote(source, end, source.length()));
+
+            boolean whole = !hasWildcard && variableNames.size() == 1 && source.indexOf(':') == -1
+                    && source.startsWith("{") && source.endsWith("}") && literalLength == 0;
+            this.wholeVariable = whole ? variableNames.get(0) : null;
+            this.regex = whole ? null : Pattern.compile(regexBuilder.toString());
+            if (regex != null && regex.matcher("").groupCount() != variableNames.size()) {
+                throw new IllegalArgumentException("The number of capturing groups in the pattern segment " + source +
+                        " does not match the number of URI template variables it defines, " +
+                        "which can occur if capturing groups are used in a URI template regex. " +
+                        "Use non-capturing groups instead.");
+            }
+            if (literalLength > 0) {
+                this.priority = -literalLength;
+            } else if (!hasWildcard && !variableNames.isEmpty()) {
+                this.priority = 1;
+            } else {
+                this.priority = 2;
+            }
+        }
+
+        boolean match(String segment, List<String> extracted) {
+            if (wholeVariable != null) {
+                extracted.add(wholeVariable);
+                extracted.add(segment);
+                return true;
+            }
+            Matcher matcher = regex.matcher(segment);
+            if (!matcher.matches()) {
+                return false;
+            }
+            for (int i = 1; i <= matcher.groupCount(); i++) {
+                extracted.add(variableNames.get(i - 1));
+                extracted.add(matcher.group(i));
+            }
+            return true;
+        }
+
+        private static String quote(String s, int start, int end) {
+            if (start == end) {
+                return "";
+            }
+            return Pattern.quote(s.substring(start, end));
+        }
+    }
+}
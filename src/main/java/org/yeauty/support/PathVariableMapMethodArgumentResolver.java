@@ -32,10 +32,16 @@ public class PathVariableMapMethodArgumentResolver implements MethodArgumentReso
             }
         }
         Map<String, String> uriTemplateVars = channel.attr(URI_TEMPLATE).get();
+        //会话级参数，同一个对象会传给该会话的每次回调，不允许修改
         if (!CollectionUtils.isEmpty(uriTemplateVars)) {
-            return uriTemplateVars;
+            return Collections.unmodifiableMap(uriTemplateVars);
         } else {
             return Collections.emptyMap();
         }
     }
+
+    @Override
+    public boolean isSessionScoped() {
+        return true;
+    }
 }
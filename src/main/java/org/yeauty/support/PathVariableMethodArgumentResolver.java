@@ -40,4 +40,9 @@ public class PathVariableMethodArgumentResolver implements MethodArgumentResolve
         TypeConverter typeConverter = beanFactory.getTypeConverter();
         return typeConverter.convertIfNecessary(arg, parameter.getParameterType());
     }
+
+    @Override
+    public boolean isSessionScoped() {
+        return true;
+    }
 }
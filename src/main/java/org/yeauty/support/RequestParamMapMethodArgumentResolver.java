@@ -6,11 +6,13 @@ import io.netty.handler.codec.http.QueryStringDecoder;
 import org.springframework.beans.TypeConverter;
 import org.springframework.beans.factory.support.AbstractBeanFactory;
 import org.springframework.core.MethodParameter;
+import org.springframework.util.CollectionUtils;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.util.StringUtils;
 import org.yeauty.annotation.RequestParam;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -45,10 +47,16 @@ public class RequestParamMapMethodArgumentResolver implements MethodArgumentReso
 
         Map<String, List<String>> requestParams = channel.attr(REQUEST_PARAM).get();
         MultiValueMap multiValueMap = new LinkedMultiValueMap(requestParams);
+        //会话级参数，同一个对象会传给该会话的每次回调，不允许修改
         if (MultiValueMap.class.isAssignableFrom(parameter.getParameterType())) {
-            return multiValueMap;
+            return CollectionUtils.unmodifiableMultiValueMap(multiValueMap);
         } else {
-            return multiValueMap.toSingleValueMap();
+            return Collections.unmodifiableMap(multiValueMap.toSingleValueMap());
         }
     }
+
+    @Override
+    public boolean isSessionScoped() {
+        return true;
+    }
 }
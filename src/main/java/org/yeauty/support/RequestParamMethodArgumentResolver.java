@@ -60,4 +60,9 @@ public class RequestParamMethodArgumentResolver implements MethodArgumentResolve
             return typeConverter.convertIfNecessary(arg.get(0), parameter.getParameterType());
         }
     }
+
+    @Override
+    public boolean isSessionScoped() {
+        return true;
+    }
 }
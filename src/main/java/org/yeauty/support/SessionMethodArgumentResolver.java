@@ -17,4 +17,9 @@ public class SessionMethodArgumentResolver implements MethodArgumentResolver {
         Session session = channel.attr(SESSION_KEY).get();
         return session;
     }
+
+    @Override
+    public boolean isSessionScoped() {
+        return true;
+    }
 }
@@ -2,6 +2,8 @@ package org.yeauty.support;
 
 import io.netty.channel.Channel;
 import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.util.CharsetUtil;
 import org.springframework.core.MethodParameter;
 import org.yeauty.annotation.OnMessage;
 
@@ -13,7 +15,10 @@ public class TextMethodArgumentResolver implements MethodArgumentResolver {
 
     @Override
     public Object resolveArgument(MethodParameter parameter, Channel channel, Object object) throws Exception {
-        TextWebSocketFrame textFrame = (TextWebSocketFrame) object;
-        return textFrame.text();
+        if (object instanceof TextWebSocketFrame) {
+            return ((TextWebSocketFrame) object).text();
+        }
+        //逐帧接收时后续帧是ContinuationWebSocketFrame
+        return ((WebSocketFrame) object).content().toString(CharsetUtil.UTF_8);
     }
 }
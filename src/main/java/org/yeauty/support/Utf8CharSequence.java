@@ -0,0 +1,73 @@
+package org.yeauty.support;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.ByteProcessor;
+import io.netty.util.CharsetUtil;
+
+/**
+ * UTF-8编码的ByteBuf的字符视图，首次访问时才处理
+ * <br>内容是纯ASCII时一个字节就是一个字符，直接读ByteBuf；否则解码为String后委托给它
+ */
+final class Utf8CharSequence implements CharSequence {
+
+    private static final ByteProcessor FIND_NON_ASCII = value -> value >= 0;
+
+    private final ByteBuf content;
+
+    /**
+     * 0：未检查；1：纯ASCII；2：已解码
+     */
+    private int state;
+    private String decoded;
+
+    Utf8CharSequence(ByteBuf content) {
+        this.content = content;
+    }
+
+    private boolean isAscii() {
+        if (state == 0) {
+            if (content.forEachByte(FIND_NON_ASCII) == -1) {
+                state = 1;
+            } else {
+                decoded = content.toString(CharsetUtil.UTF_8);
+                state = 2;
+            }
+        }
+        return state == 1;
+    }
+
+    @Override
+    public int length() {
+        return isAscii() ? content.readableBytes() : decoded.length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (isAscii()) {
+            if (index < 0 || index >= content.readableBytes()) {
+                throw new IndexOutOfBoundsException("index: " + index + ", length: " + content.readableBytes());
+            }
+            return (char) content.getByte(content.readerIndex() + index);
+        }
+        return decoded.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (isAscii()) {
+            if (start < 0 || end > content.readableBytes() || start > end) {
+                throw new IndexOutOfBoundsException("start: " + start + ", end: " + end + ", length: " + content.readableBytes());
+            }
+            return new Utf8CharSequence(content.slice(content.readerIndex() + start, end - start));
+        }
+        return decoded.subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        if (decoded == null) {
+            decoded = content.toString(isAscii() ? CharsetUtil.US_ASCII : CharsetUtil.UTF_8);
+        }
+        return decoded;
+    }
+}
@@ -0,0 +1,88 @@
+package org.yeauty.support;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PathRouterTest {
+
+    @Test
+    public void staticPatternMatchesExactPath() {
+        PathRouter router = new PathRouter();
+        router.addPattern("/ws", false);
+        router.addPattern("/ws/", false);
+
+        Map<String, String> variables = new HashMap<>();
+        assertEquals("/ws", router.match("/ws", variables));
+        assertEquals("/ws/", router.match("/ws/", variables));
+        assertNull(router.match("/ws/a", variables));
+        assertNull(router.match("/w", variables));
+        assertTrue(variables.isEmpty());
+    }
+
+    @Test
+    public void templateExtractsVariables() {
+        PathRouter router = new PathRouter();
+        router.addPattern("/room/{roomId}/user/{userId:\\d+}");
+
+        Map<String, String> variables = new HashMap<>();
+        assertEquals("/room/{roomId}/user/{userId:\\d+}", router.match("/room/lobby/user/42", variables));
+        assertEquals("lobby", variables.get("roomId"));
+        assertEquals("42", variables.get("userId"));
+
+        assertNull(router.match("/room/lobby/user/bob", new HashMap<>()));
+        assertNull(router.match("/room/lobby/user", new HashMap<>()));
+    }
+
+    @Test
+    public void mostSpecificPatternWins() {
+        PathRouter router = new PathRouter();
+        router.addPattern("/files/**");
+        router.addPattern("/files/{name}");
+        router.addPattern("/files/img-{id}");
+        router.addPattern("/files/list", false);
+
+        Map<String, String> variables = new HashMap<>();
+        assertEquals("/files/list", router.match("/files/list", variables));
+        assertTrue(variables.isEmpty());
+
+        assertEquals("/files/img-{id}", router.match("/files/img-7", variables));
+        assertEquals("7", variables.get("id"));
+
+        variables.clear();
+        assertEquals("/files/{name}", router.match("/files/readme", variables));
+        assertEquals("readme", variables.get("name"));
+
+        variables.clear();
+        assertEquals("/files/**", router.match("/files/a/b", variables));
+        assertTrue(variables.isEmpty());
+    }
+
+    @Test
+    public void emptySegmentsAreNotCollapsed() {
+        PathRouter router = new PathRouter();
+        router.addPattern("/ws", false);
+        router.addPattern("/room/{id}");
+
+        assertNull(router.match("//ws", new HashMap<>()));
+        assertNull(router.match("/ws//", new HashMap<>()));
+        assertNull(router.match("//room/1", new HashMap<>()));
+        assertNull(router.match("/room//1", new HashMap<>()));
+        assertEquals("/room/{id}", router.match("/room/1", new HashMap<>()));
+    }
+
+    @Test
+    public void variablesMatchLineTerminators() {
+        PathRouter router = new PathRouter();
+        router.addPattern("/files/{name}.txt");
+
+        Map<String, String> variables = new HashMap<>();
+        assertEquals("/files/{name}.txt", router.match("/files/a\nb.txt", variables));
+        assertEquals("a\nb", variables.get("name"));
+    }
+}